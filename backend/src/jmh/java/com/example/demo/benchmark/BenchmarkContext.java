@@ -0,0 +1,90 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entity.Employee;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an in-memory H2 database and generates
+ * synthetic employees, so benchmarks run offline, without a web server
+ * unless one is asked for.
+ */
+final class BenchmarkContext {
+
+    private static final String[] GENDERS = {"Male", "Female"};
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        return start(WebApplicationType.NONE, extraArgs);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+
+        // Command-line arguments take precedence over a local application.properties
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(webApplicationType)
+                .properties(DemoApplication.defaultProperties())
+                .run(args.toArray(String[]::new));
+    }
+
+    static void seedEmployees(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from employees");
+        List<Object[]> batch = new ArrayList<>(1000);
+        for (Employee employee : syntheticEmployees(rows)) {
+            batch.add(new Object[]{employee.getName(), employee.getAddress(), employee.getPhone(), employee.getGender()});
+            if (batch.size() == 1000) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(jdbcTemplate, batch);
+        }
+    }
+
+    static List<Employee> syntheticEmployees(int rows) {
+        List<Employee> employees = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            employees.add(new Employee((long) i, "Employee " + i, i + " Benchmark Street",
+                    String.format("555-%07d", i), GENDERS[i % GENDERS.length]));
+        }
+        return employees;
+    }
+
+    static String defaultDesign() {
+        try (InputStream in = new ClassPathResource("employee_report.jrxml").getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into employees (name, address, phone, gender) values (?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.CompiledReportCache;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CompileBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CompiledReportCache compiledReportCache;
+    private String design;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        compiledReportCache = context.getBean(CompiledReportCache.class);
+        design = BenchmarkContext.defaultDesign();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JasperReport compileUncached() throws JRException {
+        return JasperCompileManager.compileReport(new ByteArrayInputStream(design.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public JasperReport compileCached() throws JRException {
+        return compiledReportCache.getOrCompile(design);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.CompiledReportCache;
+import com.example.demo.service.EmployeeReportService;
+import com.example.demo.service.ReportImageRegistry;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeReportService employeeReportService;
+    private JasperPrint filledPrint;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seedEmployees(context, rows);
+        employeeReportService = context.getBean(EmployeeReportService.class);
+
+        JasperReport report = context.getBean(CompiledReportCache.class).getOrCompile(BenchmarkContext.defaultDesign());
+        Map<String, Object> parameters = new HashMap<>();
+        context.getBean(ReportImageRegistry.class).bindImageParameters(report, parameters);
+        filledPrint = JasperFillManager.fillReport(report, parameters,
+                new JRBeanCollectionDataSource(BenchmarkContext.syntheticEmployees(rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** PDF export stage only, from a report filled during setup. */
+    @Benchmark
+    public byte[] exportPdfOnly() throws Exception {
+        return JasperExportManager.exportReportToPdf(filledPrint);
+    }
+
+    /** Full pipeline, PDF collected into a byte array. */
+    @Benchmark
+    public byte[] endToEndBuffered() throws Exception {
+        return employeeReportService.exportEmployeeReport();
+    }
+
+    /** Full pipeline, PDF streamed straight to the output without buffering. */
+    @Benchmark
+    public void endToEndStreaming() throws Exception {
+        employeeReportService.exportEmployeeReport(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Employee;
+import com.example.demo.report.ReportProgressListener;
+import com.example.demo.service.CompiledReportCache;
+import com.example.demo.service.EmployeeReportDataProvider;
+import com.example.demo.service.ParallelReportFiller;
+import com.example.demo.service.ReportImageRegistry;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FillBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeReportDataProvider dataProvider;
+    private ParallelReportFiller parallelReportFiller;
+    private ReportImageRegistry imageRegistry;
+    private String design;
+    private JasperReport report;
+    private List<Employee> employees;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JRException {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seedEmployees(context, rows);
+        dataProvider = context.getBean(EmployeeReportDataProvider.class);
+        parallelReportFiller = context.getBean(ParallelReportFiller.class);
+        imageRegistry = context.getBean(ReportImageRegistry.class);
+        design = BenchmarkContext.defaultDesign();
+        report = context.getBean(CompiledReportCache.class).getOrCompile(design);
+        employees = BenchmarkContext.syntheticEmployees(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Baseline: entities already in memory, as with findAll(). */
+    @Benchmark
+    public JasperPrint fillBeanCollection() throws JRException {
+        return JasperFillManager.fillReport(report, parameters(), new JRBeanCollectionDataSource(employees));
+    }
+
+    @Benchmark
+    public JasperPrint fillCursor() throws JRException {
+        return dataProvider.fillReport(report, parameters(), ReportProgressListener.NONE);
+    }
+
+    @Benchmark
+    public JasperPrint fillPartitioned() throws Exception {
+        return parallelReportFiller.fill(design, this::parameters, ReportProgressListener.NONE);
+    }
+
+    private Map<String, Object> parameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        imageRegistry.bindImageParameters(report, parameters);
+        return parameters;
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test of the whole application over HTTP: closed-loop clients
+ * issue a weighted mix of employee CRUD, PDF downloads and live previews against
+ * an embedded H2 database seeded with synthetic employees. Throughput, latency
+ * percentiles, error and rejection rates per operation, and the server JVM's
+ * GC and heap figures for the measured interval are written as JSON so runs
+ * can be compared:
+ *     mvn -Pbenchmarks compile exec:exec@load -Dload.args="concurrency=64 mix=list:50,write:10,pdf:20,preview:20"
+ * Options are key=value pairs (see {@link Options}); arguments starting with
+ * {@code --} are passed on to the application, e.g. --spring.threads.virtual.enabled=true.
+ */
+public final class LoadHarness {
+
+    private static final String PREVIEW_PATH = "/api/employees/preview-live?format=png";
+
+    private LoadHarness() {
+    }
+
+    /**
+     * @param rows        synthetic employees seeded before the run
+     * @param concurrency concurrent clients, each waiting for its response before the next request
+     * @param mix         operation weights; operations are list, get, write, pdf and preview
+     */
+    record Options(int rows, int concurrency, Duration warmup, Duration duration, Map<String, Integer> mix,
+                   Path output, List<String> applicationArgs) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>(Map.of(
+                    "rows", "5000",
+                    "concurrency", "32",
+                    "warmup", "15",
+                    "duration", "60",
+                    "mix", "list:40,get:15,write:10,pdf:15,preview:20",
+                    "out", "target/load-result.json"));
+            List<String> applicationArgs = new ArrayList<>();
+            for (String arg : args) {
+                if (arg.startsWith("--")) {
+                    applicationArgs.add(arg);
+                } else if (arg.contains("=")) {
+                    values.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+                } else {
+                    throw new IllegalArgumentException("Expected key=value or --application.property=value: " + arg);
+                }
+            }
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String entry : values.get("mix").split(",")) {
+                String[] parts = entry.split(":");
+                if (!Operation.NAMES.contains(parts[0].trim())) {
+                    throw new IllegalArgumentException("Unknown operation " + parts[0] + ", expected one of " + Operation.NAMES);
+                }
+                mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            }
+            return new Options(Integer.parseInt(values.get("rows")), Integer.parseInt(values.get("concurrency")),
+                    Duration.ofSeconds(Long.parseLong(values.get("warmup"))),
+                    Duration.ofSeconds(Long.parseLong(values.get("duration"))),
+                    mix, Path.of(values.get("out")), applicationArgs);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0"));
+        applicationArgs.addAll(options.applicationArgs());
+
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(WebApplicationType.SERVLET,
+                applicationArgs.toArray(String[]::new))) {
+            BenchmarkContext.seedEmployees(context, options.rows());
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            Operation[] operations = Operation.weighted(options.mix());
+
+            long warmupEnd = System.nanoTime() + options.warmup().toNanos();
+            long end = warmupEnd + options.duration().toNanos();
+            List<Worker> workers = new ArrayList<>();
+            for (int i = 0; i < options.concurrency(); i++) {
+                Worker worker = new Worker("load-client-" + i, client, baseUrl, operations, options.rows(),
+                        warmupEnd, end);
+                workers.add(worker);
+                worker.thread.start();
+            }
+
+            Thread.sleep(options.warmup().toMillis());
+            JvmStats before = JvmStats.capture(true);
+            for (Worker worker : workers) {
+                worker.thread.join();
+            }
+            JvmStats after = JvmStats.capture(false);
+
+            Map<String, Object> result = report(options, workers, before, after);
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            String json = objectMapper.writeValueAsString(result);
+            if (options.output().getParent() != null) {
+                Files.createDirectories(options.output().getParent());
+            }
+            Files.writeString(options.output(), json);
+            System.out.println(json);
+        }
+    }
+
+    private static Map<String, Object> report(Options options, List<Worker> workers, JvmStats before, JvmStats after) {
+        double seconds = options.duration().toMillis() / 1000.0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rows", options.rows());
+        config.put("concurrency", options.concurrency());
+        config.put("warmupSeconds", options.warmup().toSeconds());
+        config.put("durationSeconds", options.duration().toSeconds());
+        config.put("mix", options.mix());
+        config.put("applicationArgs", options.applicationArgs());
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        config.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        result.put("config", config);
+
+        long totalRequests = 0;
+        long totalErrors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (String name : options.mix().keySet()) {
+            Samples samples = new Samples();
+            workers.forEach(worker -> samples.addAll(worker.samples.get(name)));
+            totalRequests += samples.count() + samples.errors;
+            totalErrors += samples.errors;
+            operations.put(name, samples.summary(seconds));
+        }
+        result.put("throughputPerSecond", totalRequests / seconds);
+        result.put("errorRate", totalRequests == 0 ? 0.0 : (double) totalErrors / totalRequests);
+        result.put("operations", operations);
+        result.put("jvm", after.since(before));
+        return result;
+    }
+
+    /**
+     * One kind of request; {@code status} is the response code, or -1 when the request itself failed.
+     */
+    enum Operation {
+        LIST("list"), GET("get"), WRITE("write"), PDF("pdf"), PREVIEW("preview");
+
+        static final List<String> NAMES = Arrays.stream(values()).map(operation -> operation.key).toList();
+        private static final String PREVIEW_DESIGN = BenchmarkContext.defaultDesign();
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation[] weighted(Map<String, Integer> mix) {
+            List<Operation> slots = new ArrayList<>();
+            for (Operation operation : values()) {
+                for (int i = 0; i < mix.getOrDefault(operation.key, 0); i++) {
+                    slots.add(operation);
+                }
+            }
+            if (slots.isEmpty()) {
+                throw new IllegalArgumentException("The mix has no operation with a positive weight");
+            }
+            return slots.toArray(Operation[]::new);
+        }
+
+        HttpRequest request(String baseUrl, int rows, String clientId) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long id = 1 + random.nextInt(Math.max(1, rows));
+            return switch (this) {
+                case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/employees?size=50&after="
+                        + random.nextInt(Math.max(1, rows)))).build();
+                case GET -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/employees/" + id)).build();
+                // Every write changes the data version, so it also invalidates the cached PDF
+                case WRITE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/employees/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"Employee " + id
+                                + "\",\"address\":\"" + random.nextInt(1000) + " Load Street\","
+                                + "\"phone\":\"555-0000000\",\"gender\":\"" + (id % 2 == 0 ? "Male" : "Female") + "\"}"))
+                        .build();
+                case PDF -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/reports/employees/pdf")).build();
+                case PREVIEW -> HttpRequest.newBuilder(URI.create(baseUrl + PREVIEW_PATH))
+                        .header("Content-Type", "application/xml")
+                        .header("X-Client-Id", clientId)
+                        .POST(HttpRequest.BodyPublishers.ofString(PREVIEW_DESIGN))
+                        .build();
+            };
+        }
+    }
+
+    /**
+     * A closed-loop client: sends the next request as soon as the previous
+     * response is read, recording only what completes after the warmup.
+     */
+    private static final class Worker implements Runnable {
+        private final Thread thread;
+        private final HttpClient client;
+        private final String baseUrl;
+        private final Operation[] operations;
+        private final int rows;
+        private final long warmupEnd;
+        private final long end;
+        private final Map<String, Samples> samples = new LinkedHashMap<>();
+
+        Worker(String name, HttpClient client, String baseUrl, Operation[] operations, int rows,
+               long warmupEnd, long end) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.operations = operations;
+            this.rows = rows;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            for (String operation : Operation.NAMES) {
+                samples.put(operation, new Samples());
+            }
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < end) {
+                Operation operation = operations[random.nextInt(operations.length)];
+                long started = System.nanoTime();
+                int status;
+                try {
+                    status = client.send(operation.request(baseUrl, rows, thread.getName()),
+                            HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    status = -1;
+                }
+                long finished = System.nanoTime();
+                if (started >= warmupEnd && finished <= end) {
+                    samples.get(operation.key).record(status, finished - started);
+                }
+            }
+        }
+    }
+
+    /**
+     * Latencies of successful responses, plus counts of rejections (429) and
+     * errors (anything else that is not 2xx, or no response at all).
+     */
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long rejected;
+        private long errors;
+
+        void record(int status, long latencyNanos) {
+            if (status == 429) {
+                rejected++;
+                errors++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            } else {
+                if (size == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, size * 2);
+                }
+                latencies[size++] = latencyNanos;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                record(200, other.latencies[i]);
+            }
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+
+        int count() {
+            return size;
+        }
+
+        Map<String, Object> summary(double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            long total = size + errors;
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", total);
+            summary.put("throughputPerSecond", total / seconds);
+            summary.put("errors", errors);
+            summary.put("rejected", rejected);
+            summary.put("errorRate", total == 0 ? 0.0 : (double) errors / total);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMillis(sorted, 0.50));
+            latency.put("p95", percentileMillis(sorted, 0.95));
+            latency.put("p99", percentileMillis(sorted, 0.99));
+            latency.put("max", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+            latency.put("mean", sorted.length == 0 ? 0.0 : Arrays.stream(sorted).average().orElse(0) / 1e6);
+            summary.put("latencyMillis", latency);
+            return summary;
+        }
+
+        // Nearest-rank percentile
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+
+    /**
+     * GC, heap and allocation figures of this JVM, which also runs the server.
+     */
+    private record JvmStats(Map<String, long[]> collectors, long allocatedBytes, long heapUsedBytes,
+                            long heapPeakBytes) {
+
+        static JvmStats capture(boolean resetPeaks) {
+            Map<String, long[]> collectors = new LinkedHashMap<>();
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collectors.put(collector.getName(), new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+            }
+            long heapPeak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPeak += pool.getPeakUsage().getUsed();
+                    if (resetPeaks) {
+                        pool.resetPeakUsage();
+                    }
+                }
+            }
+            long allocated = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    ? threads.getTotalThreadAllocatedBytes()
+                    : -1;
+            return new JvmStats(collectors, allocated,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), heapPeak);
+        }
+
+        Map<String, Object> since(JvmStats before) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Map<String, Object> gc = new LinkedHashMap<>();
+            collectors.forEach((name, counts) -> {
+                long[] earlier = before.collectors.getOrDefault(name, new long[2]);
+                gc.put(name, Map.of("collections", counts[0] - earlier[0], "timeMillis", counts[1] - earlier[1]));
+            });
+            stats.put("gc", gc);
+            // Includes the load clients, which run in the same JVM as the server
+            stats.put("allocatedBytes", allocatedBytes < 0 || before.allocatedBytes < 0
+                    ? -1 : allocatedBytes - before.allocatedBytes);
+            stats.put("heapUsedBytes", heapUsedBytes);
+            stats.put("heapPeakBytes", heapPeakBytes);
+            return stats;
+        }
+    }
+}
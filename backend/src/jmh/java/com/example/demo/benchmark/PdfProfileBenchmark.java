@@ -0,0 +1,80 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.report.CountingOutputStream;
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.service.CompiledReportCache;
+import com.example.demo.service.ReportExporter;
+import com.example.demo.service.ReportImageRegistry;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export time and output size of each PDF export profile on employee_report.jrxml.
+ * Sizes come out as the {@code outputBytes} and {@code exports} secondary results,
+ * whose ratio is the size of one PDF:
+ *     mvn -Pbenchmarks compile exec:exec -Djmh.args="PdfProfileBenchmark -rf json -rff target/jmh-pdf-profiles.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PdfProfileBenchmark {
+
+    @Param({"fast", "small", "archival"})
+    public String profile;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ReportExporter reportExporter;
+    private PdfExportProfile pdfProfile;
+    private JasperPrint filledPrint;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Output {
+        public long outputBytes;
+        public long exports;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        reportExporter = context.getBean(ReportExporter.class);
+        pdfProfile = PdfExportProfile.fromName(profile).orElseThrow();
+
+        // The profile decides which form of the logos is bound into the fill
+        JasperReport report = context.getBean(CompiledReportCache.class).getOrCompile(BenchmarkContext.defaultDesign());
+        Map<String, Object> parameters = new HashMap<>();
+        context.getBean(ReportImageRegistry.class).bindImageParameters(report, parameters, pdfProfile.getImageQuality());
+        filledPrint = JasperFillManager.fillReport(report, parameters,
+                new JRBeanCollectionDataSource(BenchmarkContext.syntheticEmployees(rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long exportPdf(Output output) throws Exception {
+        CountingOutputStream out = new CountingOutputStream(OutputStream.nullOutputStream());
+        reportExporter.export(filledPrint, ReportFormat.PDF, pdfProfile, out);
+        output.outputBytes += out.getCount();
+        output.exports++;
+        return out.getCount();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput over HTTP with many concurrent clients, on platform
+ * threads versus virtual threads. Both modes get the same small Tomcat pool
+ * and render limiter, so the difference comes from requests that are waiting
+ * rather than rendering:
+ *     mvn -Pbenchmarks compile exec:exec -Djmh.args="VirtualThreadLoadBenchmark -rf json -rff target/jmh-vt.json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(256)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 15)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"2000"})
+    public int rows;
+
+    @Param({"50"})
+    public int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(WebApplicationType.SERVLET,
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+        BenchmarkContext.seedEmployees(context, rows);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Full fill and export per request, streamed, bypassing the output cache. */
+    @Benchmark
+    public int streamPdf() throws Exception {
+        return get("/api/reports/employees/pdf/stream");
+    }
+
+    /** Cheap database-bound request that competes for the same request threads. */
+    @Benchmark
+    public int employeePage() throws Exception {
+        return get("/api/employees?size=100");
+    }
+
+    private int get(String path) throws Exception {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
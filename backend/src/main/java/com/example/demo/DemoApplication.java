@@ -5,13 +5,43 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @SpringBootApplication
 @ComponentScan(basePackages = "com.example.demo")
 @EntityScan(basePackages = "com.example.demo.entity")
 @EnableJpaRepositories(basePackages = "com.example.demo.repository")
+@EnableScheduling
 public class DemoApplication {
     public static void main(String[] args) {
-        SpringApplication.run(DemoApplication.class, args);
+        SpringApplication application = new SpringApplication(DemoApplication.class);
+        application.setDefaultProperties(defaultProperties());
+        application.run(args);
+    }
+
+    // Lowest-precedence defaults; application.properties or the command line override them
+    public static Map<String, Object> defaultProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("management.endpoints.web.exposure.include", "health,info,metrics,prometheus");
+        // Group inserts and updates per entity into JDBC batches
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", 50);
+        properties.put("spring.jpa.properties.hibernate.order_inserts", true);
+        properties.put("spring.jpa.properties.hibernate.order_updates", true);
+        // Without it Connector/J buffers whole result sets and ignores the fetch size
+        // report cursors set, so large reports would still be held in memory
+        properties.put("spring.datasource.hikari.data-source-properties.useCursorFetch", true);
+        // Second-level and query cache; region sizes are in application.conf
+        properties.put("spring.jpa.properties.hibernate.cache.use_second_level_cache", true);
+        properties.put("spring.jpa.properties.hibernate.cache.use_query_cache", true);
+        properties.put("spring.jpa.properties.hibernate.cache.region.factory_class", "jcache");
+        properties.put("spring.jpa.properties.hibernate.javax.cache.provider",
+                "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        properties.put("spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy", "create");
+        // Feeds the hibernate.* cache metrics and the L2 stats endpoint
+        properties.put("spring.jpa.properties.hibernate.generate_statistics", true);
+        return properties;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ReportAdmission;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Ties an admission ticket to the async request that streams the report. The
+ * body closes it when it finishes, but a body still queued for the async
+ * executor when the request times out or fails never runs, so the ticket is
+ * also closed once async processing completes for any reason.
+ */
+final class AdmissionTickets {
+
+    private AdmissionTickets() {
+    }
+
+    static void closeOnCompletion(ReportAdmission.Ticket ticket, WebRequest request) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ReportAdmission.Ticket.class.getName(),
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest completed, Callable<T> task) {
+                        ticket.close();
+                    }
+                });
+    }
+}
@@ -1,29 +1,109 @@
 package com.example.demo.controller;
 
 import com.example.demo.entity.Employee;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.service.CompiledReportCache;
+import com.example.demo.service.EmployeeImportService;
 import com.example.demo.service.EmployeeService;
+import com.example.demo.service.LivePreviewService;
+import com.example.demo.service.RenderLimiter;
+import com.example.demo.service.ReportAdmission;
+import com.example.demo.service.ReportImageRegistry;
+import com.example.demo.service.ReportMetrics;
+import com.example.demo.service.ReportRecording;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private LivePreviewService livePreviewService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @Autowired
+    private RenderLimiter renderLimiter;
+
+    @Autowired
+    private ReportAdmission reportAdmission;
+
+    /**
+     * Lists employees one keyset page at a time. The next page is linked in
+     * the Link header; {@code fields} selects a subset of the attributes.
+     */
     @GetMapping
-    public List<Employee> getAllEmployees() {
-        return employeeService.getAllEmployees();
+    public ResponseEntity<StreamingResponseBody> getEmployees(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer size,
+                                                              @RequestParam(required = false) List<String> fields) {
+        EmployeeService.EmployeePage page;
+        try {
+            page = employeeService.getEmployeePage(after, size, fields == null ? List.of() : fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Rows are written straight to the response instead of being buffered as one document
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (Tuple row : page.rows()) {
+                    generator.writeStartObject();
+                    for (int i = 0; i < page.fields().size(); i++) {
+                        generator.writeObjectField(page.fields().get(i), row.get(i));
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.nextAfterId() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextAfterId())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/{id}")
@@ -38,6 +118,19 @@ public class EmployeeController {
         return employeeService.createEmployee(employee);
     }
 
+    /**
+     * Bulk load from an NDJSON or CSV (with header row) body, read as it arrives.
+     * Rows with an id update that employee, the others are inserted.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<EmployeeImportService.ImportResult> importEmployees(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        EmployeeImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? EmployeeImportService.Format.CSV
+                : EmployeeImportService.Format.NDJSON;
+        return ResponseEntity.ok(employeeImportService.importEmployees(body, format));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Employee> updateEmployee(@PathVariable Long id, @RequestBody Employee employeeDetails) {
         try {
@@ -59,57 +152,79 @@ public class EmployeeController {
     }
 
     @PostMapping("/preview-live")
-    public ResponseEntity<byte[]> previewLive(@RequestBody String jrxml) {
-        try {
-            JasperReport jasperReport = JasperCompileManager.compileReport(new ByteArrayInputStream(jrxml.getBytes()));
-
-            // Add parameters for logos
-            Map<String, Object> params = new HashMap<>();
-            
-            // Load logo images from resources
-            InputStream logoLeftStream = getClass().getResourceAsStream("/logo.png");
-            InputStream logoRightStream = getClass().getResourceAsStream("/organization_logo.png");
-            
-            params.put("logoLeft", logoLeftStream);
-            params.put("logoRight", logoRightStream);
-
-            // Get real employee data from the database
-            List<Employee> employees = employeeService.getAllEmployees();
-            
-            // If no data exists, add some sample data for better visualization
-            if (employees.isEmpty()) {
-                Employee sample1 = new Employee();
-                sample1.setName("John Smith");
-                sample1.setAddress("123 Main Street");
-                sample1.setPhone("555-1234");
-                sample1.setGender("Male");
-                
-                Employee sample2 = new Employee();
-                sample2.setName("Jane Doe");
-                sample2.setAddress("456 Oak Avenue");
-                sample2.setPhone("555-5678");
-                sample2.setGender("Female");
-                
-                employees.add(sample1);
-                employees.add(sample2);
-            }
-            
-            // Use actual Employee objects for better field mapping
-            JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(employees);
+    public ResponseEntity<byte[]> previewLive(@RequestBody String jrxml,
+                                              @RequestParam(defaultValue = "pdf") String format,
+                                              @RequestHeader(value = "X-Client-Id", required = false) String clientId) {
+        if ("png".equalsIgnoreCase(format)) {
+            return previewFirstPage(jrxml, clientId);
+        }
+        try (ReportRecording recording = reportMetrics.start("preview", "pdf")) {
+            JasperReport jasperReport = recording.time("compile", () -> compiledReportCache.getOrCompile(jrxml));
 
-            JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, params, dataSource);
+            // Fills from every employee, so it is weighed like a full export
+            try (ReportAdmission.Ticket ticket = reportAdmission.admit(jasperReport, ReportFormat.PDF)) {
+                // Add parameters for logos from the shared image registry
+                Map<String, Object> params = new HashMap<>();
+                reportImageRegistry.bindImageParameters(jasperReport, params);
 
-            ByteArrayOutputStream pdfStream = new ByteArrayOutputStream();
-            JasperExportManager.exportReportToPdfStream(jasperPrint, pdfStream);
+                // Get real employee data from the database
+                List<Employee> employees = recording.time("query", employeeService::getAllEmployees);
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=preview.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfStream.toByteArray());
+                // If no data exists, add some sample data for better visualization
+                if (employees.isEmpty()) {
+                    employees = LivePreviewService.sampleEmployees();
+                }
+
+                // Use actual Employee objects for better field mapping
+                JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(employees);
+                recording.rows(employees.size());
 
+                JasperPrint jasperPrint = recording.time("fill",
+                        () -> renderLimiter.run(() -> JasperFillManager.fillReport(jasperReport, params, dataSource)));
+                recording.pages(jasperPrint.getPages().size());
+
+                ByteArrayOutputStream pdfStream = new ByteArrayOutputStream();
+                recording.time("export", () -> renderLimiter.run(() -> {
+                    JasperExportManager.exportReportToPdfStream(jasperPrint, pdfStream);
+                    return null;
+                }));
+                recording.outputBytes(pdfStream.size());
+
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=preview.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .body(pdfStream.toByteArray());
+            }
+        } catch (TooManyRequestsException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Live preview failed: {}", e.getMessage());
+            log.debug("Live preview failure", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Fast path for the editor: the first page only, as a PNG, filled from a
+     * capped number of rows.
+     */
+    private ResponseEntity<byte[]> previewFirstPage(String jrxml, String clientId) {
+        // Capped at a few rows, so the cheapest admission; it still counts against the in-flight limit
+        try (ReportAdmission.Ticket ticket = reportAdmission.admit(1)) {
+            byte[] png = livePreviewService.renderFirstPage(clientId, jrxml);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=preview.png")
+                    .contentType(MediaType.IMAGE_PNG)
+                    .body(png);
+        } catch (TooManyRequestsException e) {
+            throw e;
+        } catch (CancellationException e) {
+            // A newer preview from the same editor replaced this one
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Live preview failed: {}", e.getMessage());
+            log.debug("Live preview failure", e);
             return ResponseEntity.badRequest().build();
         }
     }
-} 
\ No newline at end of file
+}
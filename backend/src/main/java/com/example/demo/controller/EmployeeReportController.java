@@ -1,62 +1,402 @@
 package com.example.demo.controller;
 
+import com.example.demo.entity.ReportDesignRevision;
+import com.example.demo.exception.DesignVersionConflictException;
+import com.example.demo.exception.InvalidReportDesignException;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.report.ReportProgressListener;
+import com.example.demo.report.TextDelta;
+import com.example.demo.repository.ReportDesignRevisionRepository;
+import com.example.demo.service.CompiledReportCache;
 import com.example.demo.service.EmployeeReportService;
+import com.example.demo.service.EmployeeSnapshotCache;
+import com.example.demo.service.ReportAdmission;
+import com.example.demo.service.ReportBurstService;
+import com.example.demo.service.ReportDesignStore;
+import com.example.demo.service.ReportExporter;
+import com.example.demo.service.ReportImageRegistry;
+import com.example.demo.service.ReportOutputCache;
+import com.example.demo.service.SecondLevelCacheStats;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipOutputStream;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/reports")
 public class EmployeeReportController {
+    private static final Pattern IMAGE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Pattern DESIGN_ETAG = Pattern.compile("(?:W/)?\"design-(\\d{1,18})-([0-9a-f]{64})\"");
+
     @Autowired
     private EmployeeReportService employeeReportService;
 
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ReportOutputCache reportOutputCache;
+
+    @Autowired
+    private ReportBurstService reportBurstService;
+
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+
+    @Autowired
+    private EmployeeSnapshotCache employeeSnapshotCache;
+
+    @Autowired
+    private ReportAdmission reportAdmission;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    /**
+     * @param profile PDF export profile: fast, small or archival; the configured default when absent
+     */
     @GetMapping("/employees/pdf")
-    public ResponseEntity<byte[]> downloadEmployeeReport() {
+    public ResponseEntity<Resource> downloadEmployeeReport(@RequestParam(required = false) String profile,
+                                                           WebRequest request) {
+        Optional<PdfExportProfile> pdfProfile = reportExporter.resolveProfile(profile);
+        if (pdfProfile.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            byte[] pdf = employeeReportService.exportEmployeeReport();
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employee_report.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdf);
+            return cachedExport(ReportFormat.PDF, pdfProfile.get(), request);
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/employees/pdf/stream")
+    public ResponseEntity<StreamingResponseBody> streamEmployeeReport(@RequestParam(required = false) String profile,
+                                                                      WebRequest request) throws Exception {
+        Optional<PdfExportProfile> pdfProfile = reportExporter.resolveProfile(profile);
+        if (pdfProfile.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Admitted before the response starts, so a rejection can still be a 429
+        ReportAdmission.Ticket ticket = reportAdmission.admit(employeeReportService.getCompiledReport(), ReportFormat.PDF);
+        AdmissionTickets.closeOnCompletion(ticket, request);
+        // The PDF is written to the response as it is exported, so errors after
+        // the first byte can only abort the connection
+        StreamingResponseBody body = out -> {
+            try (ticket) {
+                employeeReportService.exportEmployeeReport(out, ReportFormat.PDF, pdfProfile.get(),
+                        ReportProgressListener.NONE);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to export employee report", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employee_report.pdf")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+
+    @GetMapping("/employees")
+    public ResponseEntity<?> exportEmployeeReport(@RequestParam(defaultValue = "pdf") String format,
+                                                  @RequestParam(required = false) String profile,
+                                                  WebRequest request) throws Exception {
+        Optional<PdfExportProfile> pdfProfile = reportExporter.resolveProfile(profile);
+        if (pdfProfile.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<ReportFormat> formats = new LinkedHashSet<>();
+        for (String requested : format.split(",")) {
+            Optional<ReportFormat> reportFormat = ReportFormat.fromExtension(requested);
+            if (reportFormat.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            formats.add(reportFormat.get());
+        }
+
+        // Several formats share one fill and come back together as a zip
+        if (formats.size() > 1) {
+            ReportAdmission.Ticket ticket = reportAdmission.admit(employeeReportService.getCompiledReport(), formats);
+            AdmissionTickets.closeOnCompletion(ticket, request);
+            StreamingResponseBody body = out -> {
+                try (ticket) {
+                    ZipOutputStream zip = new ZipOutputStream(out);
+                    employeeReportService.exportEmployeeReportBundle(zip, formats, pdfProfile.get());
+                    zip.finish();
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Failed to export employee report", e);
+                }
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employee_report.zip")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body);
+        }
+
+        return cachedExport(formats.iterator().next(), pdfProfile.get(), request);
+    }
+
+    /**
+     * One PDF per employee, zipped and streamed as the documents are filled.
+     */
+    @GetMapping("/employees/burst")
+    public ResponseEntity<StreamingResponseBody> burstEmployeeReport(WebRequest request) throws Exception {
+        ReportAdmission.Ticket ticket = reportAdmission.admit(employeeReportService.getCompiledReport(), ReportFormat.PDF);
+        AdmissionTickets.closeOnCompletion(ticket, request);
+        StreamingResponseBody body = out -> {
+            try (ticket) {
+                ZipOutputStream zip = new ZipOutputStream(out);
+                reportBurstService.burstEmployeeReport(zip);
+                zip.finish();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to burst employee report", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employee_reports.zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /**
+     * Serves the export from the rendered-output cache, rendering it first if the
+     * design or data changed since it was last produced.
+     */
+    private ResponseEntity<Resource> cachedExport(ReportFormat format, PdfExportProfile profile,
+                                                  WebRequest request) throws Exception {
+        String cacheKey = employeeReportService.getOutputCacheKey(format, profile);
+        String etag = "\"" + cacheKey + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // Only a render is admitted; requests joining one in flight are capped and time-bounded by the cache
+        ReportOutputCache.CachedFile file = reportOutputCache.getOrRender(cacheKey, out -> {
+            try (ReportAdmission.Ticket ticket = reportAdmission.admit(employeeReportService.getCompiledReport(), format)) {
+                employeeReportService.exportEmployeeReport(out, format, profile, ReportProgressListener.NONE);
+            }
+        });
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employee_report." + format.getExtension())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .contentLength(file.size())
+                // Copied through a buffer: Spring MVC writes every Resource body with a stream copy,
+                // a FileSystemResource included, so there is no sendfile path to keep. The stream is
+                // opened before eviction can delete the file, which a path-based resource cannot ensure
+                .body(new InputStreamResource(file.stream()));
+    }
+
+    /**
+     * The current design, tagged with its version so editors can revalidate it
+     * cheaply and make conditional saves against it.
+     */
     @GetMapping("/employees/preview")
-    public ResponseEntity<String> previewReportDesign() {
+    public ResponseEntity<String> previewReportDesign(WebRequest request) {
         try {
-            String jrxmlContent = employeeReportService.getReportDesign();
+            ReportDesignStore.StoredDesign design = employeeReportService.getStoredDesign();
+            String etag = designEtag(design.version(), design.hash());
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
             return ResponseEntity.ok()
+                    .eTag(etag)
                     .contentType(MediaType.TEXT_XML)
-                    .body(jrxmlContent);
+                    .body(design.content());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Replaces the design; with If-Match only if it is still at the version the editor loaded.
+     */
     @PostMapping("/employees/design")
-    public ResponseEntity<?> saveReportDesign(@RequestBody String designContent) {
+    public ResponseEntity<?> saveReportDesign(@RequestBody String designContent,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
+        DesignTag expected = expectedDesign(ifMatch);
         try {
-            System.out.println("Controller received design content with length: " + designContent.length());
-            
             // Validate input
             if (designContent == null || designContent.isBlank()) {
-                System.err.println("Error: Empty design content received");
+                log.warn("Rejected empty design content");
                 return ResponseEntity.badRequest().body("Design content cannot be empty");
             }
             
-            employeeReportService.saveReportDesign(designContent);
+            ReportDesignStore.StoredDesign savedDesign =
+                    employeeReportService.saveReportDesign(designContent,
+                            expected == null ? null : expected.version(), expected == null ? null : expected.hash());
             
             // Return a detailed success response with message
-            return ResponseEntity.ok().body("Design saved successfully");
+            return ResponseEntity.ok()
+                    .eTag(designEtag(savedDesign.version(), savedDesign.hash()))
+                    .body("Design saved successfully");
+        } catch (DesignVersionConflictException e) {
+            throw e;
+        } catch (InvalidReportDesignException e) {
+            log.warn("Rejected report design: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
-            System.err.println("Controller error while saving design: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Failed to save report design", e);
             return ResponseEntity.internalServerError().body("Failed to save design: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Saves an editor's changes uploaded as splices against the version named in
+     * If-Match, which is required so edits are never applied to a different design.
+     */
+    @PatchMapping(value = "/employees/design", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> patchReportDesign(@RequestBody TextDelta delta,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch) throws Exception {
+        DesignTag base = expectedDesign(ifMatch);
+        if (base == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                    .body("If-Match must name the design version the edits were made against");
+        }
+        ReportDesignStore.StoredDesign savedDesign =
+                employeeReportService.patchReportDesign(base.version(), base.hash(), delta);
+        return ResponseEntity.ok()
+                .eTag(designEtag(savedDesign.version(), savedDesign.hash()))
+                .body("Design saved successfully");
+    }
+
+    @GetMapping("/employees/design/history")
+    public ResponseEntity<List<ReportDesignRevisionRepository.RevisionSummary>> getDesignHistory() {
+        return ResponseEntity.ok(employeeReportService.getDesignHistory());
+    }
+
+    @GetMapping("/employees/design/history/{version}")
+    public ResponseEntity<String> getDesignRevision(@PathVariable long version, WebRequest request) {
+        Optional<ReportDesignRevision> revision = employeeReportService.getDesignRevision(version);
+        if (revision.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Tagged like the design it was, so an editor can make a conditional save against it
+        String content = revision.get().getDesignContent();
+        String etag = designEtag(version, CompiledReportCache.hash(content));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.TEXT_XML)
+                .body(content);
+    }
+
+    // Versions restart when a design is recreated, so the tag also carries the content hash
+    private static String designEtag(long version, String hash) {
+        return "\"design-" + version + "-" + hash + "\"";
+    }
+
+    private record DesignTag(long version, String hash) {
+    }
+
+    /**
+     * The design version and content an If-Match header names, or null when the save is unconditional.
+     */
+    private static DesignTag expectedDesign(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = DESIGN_ETAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new DesignVersionConflictException("If-Match does not name a design version: " + ifMatch, null);
+        }
+        return new DesignTag(Long.parseLong(matcher.group(1)), matcher.group(2));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCompiledReportCacheStats() {
+        return ResponseEntity.ok(compiledReportCache.getStats());
+    }
+
+    @GetMapping("/cache/output/stats")
+    public ResponseEntity<Map<String, Object>> getOutputCacheStats() {
+        return ResponseEntity.ok(reportOutputCache.getStats());
+    }
+
+    @GetMapping("/cache/entity/stats")
+    public ResponseEntity<Map<String, Object>> getSecondLevelCacheStats() {
+        return ResponseEntity.ok(secondLevelCacheStats.getStats());
+    }
+
+    @GetMapping("/admission/stats")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(reportAdmission.getStats());
+    }
+
+    @GetMapping("/cache/snapshot/stats")
+    public ResponseEntity<Map<String, Object>> getSnapshotStats() {
+        return ResponseEntity.ok(employeeSnapshotCache.getStats());
+    }
+
+    /**
+     * Registers an image for report parameters of the same name. The built-in
+     * logos cannot be replaced, and the body is read no further than the size limit.
+     */
+    @PutMapping("/images/{name}")
+    public ResponseEntity<Void> registerImage(@PathVariable String name, InputStream body,
+                                              @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false)
+                                              Long contentLength) throws IOException {
+        if (!IMAGE_NAME.matcher(name).matches()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (reportImageRegistry.isBuiltIn(name)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        int maxBytes = reportImageRegistry.getMaxImageBytes();
+        if (contentLength != null && contentLength > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        byte[] image = body.readNBytes(maxBytes + 1);
+        if (image.length > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (image.length == 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        reportImageRegistry.register(name, image);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/images/{name}")
+    public ResponseEntity<Void> evictImage(@PathVariable String name) {
+        if (reportImageRegistry.isBuiltIn(name)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return reportImageRegistry.evict(name)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.controller;
+
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.service.ReportAdmission;
+import com.example.demo.service.ReportExporter;
+import com.example.demo.service.TemplateReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Renders any report type that has an active template and a registered data provider.
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+    private static final Pattern REPORT_TYPE = Pattern.compile("[A-Za-z0-9_-]+");
+
+    @Autowired
+    private TemplateReportService templateReportService;
+
+    @Autowired
+    private ReportAdmission reportAdmission;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @GetMapping("/{reportType}")
+    public ResponseEntity<StreamingResponseBody> exportReport(@PathVariable String reportType,
+                                                              @RequestParam(defaultValue = "pdf") String format,
+                                                              @RequestParam(required = false) String profile,
+                                                              WebRequest request) throws Exception {
+        if (!REPORT_TYPE.matcher(reportType).matches()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<ReportFormat> reportFormat = ReportFormat.fromExtension(format);
+        Optional<PdfExportProfile> pdfProfile = reportExporter.resolveProfile(profile);
+        if (reportFormat.isEmpty() || pdfProfile.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<TemplateReportService.RenderableReport> renderable = templateReportService.find(reportType);
+        if (renderable.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Admitted before the response starts, so a rejection can still be a 429
+        ReportAdmission.Ticket ticket = reportAdmission.admit(templateReportService.getCompiledReport(renderable.get()),
+                List.of(reportFormat.get()), renderable.get().dataProvider().countRows());
+        AdmissionTickets.closeOnCompletion(ticket, request);
+        StreamingResponseBody body = out -> {
+            try (ticket) {
+                templateReportService.export(renderable.get(), reportFormat.get(), pdfProfile.get(), out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to export " + reportType, e);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + reportType + "." + reportFormat.get().getExtension())
+                .contentType(MediaType.parseMediaType(reportFormat.get().getContentType()))
+                .body(body);
+    }
+}
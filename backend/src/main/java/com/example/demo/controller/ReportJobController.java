@@ -0,0 +1,75 @@
+package com.example.demo.controller;
+
+import com.example.demo.report.ReportFormat;
+import com.example.demo.service.ReportJob;
+import com.example.demo.service.ReportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @PostMapping
+    public ResponseEntity<ReportJob> submitJob(@RequestParam(defaultValue = "employee_report") String reportType,
+                                               @RequestParam(defaultValue = "pdf") String format,
+                                               @RequestHeader(value = "X-Client-Id", required = false) String clientId,
+                                               HttpServletRequest request) throws Exception {
+        ReportFormat reportFormat = ReportFormat.fromExtension(format).orElse(null);
+        if (!"employee_report".equals(reportType) || reportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Fall back to the caller's address so anonymous clients are still limited
+        String client = clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+        ReportJob job = reportJobService.submit(client, reportType, reportFormat);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJob> getJob(@PathVariable String id) {
+        return reportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable String id) {
+        ReportJob job = reportJobService.getJob(id).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ReportJob.Status.COMPLETED || job.getOutputFile() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + job.getReportType() + "." + job.getFormat().getExtension())
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .contentLength(job.getOutputBytes())
+                .body(new FileSystemResource(job.getOutputFile()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelJob(@PathVariable String id) {
+        if (reportJobService.getJob(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return reportJobService.cancel(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores large text columns gzip-compressed and Base64-encoded in the same text
+ * column. Values written before compression was introduced carry no prefix and
+ * are read back unchanged, so existing rows need no migration.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+    private static final String PREFIX = "gzip:";
+
+    @Override
+    public String convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(text.length() / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(compressed.toByteArray());
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return stored;
+        }
+        byte[] compressed = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -4,9 +4,18 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Serve report sorts and group orders pushed down to the database, ties broken by id
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_name", columnList = "name, id"),
+        @Index(name = "idx_employees_gender_name", columnList = "gender, name, id")
+})
+@EntityListeners(EmployeeChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
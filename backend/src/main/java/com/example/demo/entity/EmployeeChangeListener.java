@@ -0,0 +1,27 @@
+package com.example.demo.entity;
+
+import com.example.demo.service.EmployeeDataVersion;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bumps the employee data version for every write that goes through JPA,
+ * including ones that bypass EmployeeService. Instantiated by Hibernate
+ * through Spring's bean container.
+ */
+@Component
+public class EmployeeChangeListener {
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Employee employee) {
+        employeeDataVersion.bump();
+    }
+}
@@ -2,8 +2,12 @@ package com.example.demo.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "report_designs")
 @Data
 public class ReportDesign {
@@ -14,12 +18,24 @@ public class ReportDesign {
     @Column(name = "report_name", nullable = false, unique = true)
     private String reportName;
 
+    // Stored compressed; JRXML is verbose and shrinks several times over
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "design_content", columnDefinition = "LONGTEXT", nullable = false)
     private String designContent;
 
+    // Serialized JasperReport compiled from designContent when it was saved
+    @Lob
+    @Column(name = "compiled_report", columnDefinition = "LONGBLOB")
+    private byte[] compiledReport;
+
     @Column(name = "last_modified")
     private java.sql.Timestamp lastModified;
 
+    // Optimistic lock; the default backfills rows created before the column existed
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     @PreUpdate
     protected void onUpdate() {
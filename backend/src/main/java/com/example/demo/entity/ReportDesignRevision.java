@@ -0,0 +1,30 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A design as it was saved at one version, kept for the design history.
+ */
+@Entity
+@Table(name = "report_design_revisions",
+        indexes = @Index(name = "idx_design_revisions_name_version", columnList = "report_name,version", unique = true))
+@Data
+public class ReportDesignRevision {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "report_name", nullable = false)
+    private String reportName;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "design_content", columnDefinition = "LONGTEXT", nullable = false)
+    private String designContent;
+
+    @Column(name = "created_at", nullable = false)
+    private java.sql.Timestamp createdAt;
+}
@@ -1,9 +1,15 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "report_templates")
 @Data
 public class ReportTemplate {
@@ -17,6 +23,12 @@ public class ReportTemplate {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String jrxmlContent;
 
+    // Serialized JasperReport compiled from jrxmlContent when it was saved
+    @JsonIgnore
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] compiledReport;
+
     @Column(nullable = false)
     private String reportType; // e.g., "employee_report"
 
@@ -25,4 +37,15 @@ public class ReportTemplate {
 
     @Column
     private String description;
+
+    // Compared by other nodes to notice that the active templates have changed
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "last_modified")
+    private java.sql.Timestamp lastModified;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        lastModified = new java.sql.Timestamp(System.currentTimeMillis());
+    }
 } 
\ No newline at end of file
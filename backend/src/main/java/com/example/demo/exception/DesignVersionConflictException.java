@@ -0,0 +1,21 @@
+package com.example.demo.exception;
+
+/**
+ * A conditional design save named a version that is no longer the current one.
+ */
+public class DesignVersionConflictException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public DesignVersionConflictException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * The version the design is at now, or null when it is not known.
+     */
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
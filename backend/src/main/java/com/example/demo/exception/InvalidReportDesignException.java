@@ -0,0 +1,8 @@
+package com.example.demo.exception;
+
+public class InvalidReportDesignException extends RuntimeException {
+
+    public InvalidReportDesignException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.demo.report;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Immutable column-oriented copy of a table, ordered by id. String columns
+ * with few distinct values are dictionary-encoded, the others are packed as
+ * UTF-8 into one byte array per column, so the snapshot costs a few bytes per
+ * cell rather than an object per row and value. Safe to read from any number
+ * of threads at once.
+ */
+public final class ColumnarSnapshot {
+
+    private final long version;
+    private final long[] ids;
+    private final Map<String, StringColumn> columns;
+    private final int maxOrderings;
+    // Row orders resolved on first request, the most recently used few kept; concurrent
+    // requests for the same order wait for one lookup
+    private final Map<List<SortColumn>, CompletableFuture<int[]>> orderings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<SortColumn>, CompletableFuture<int[]>> eldest) {
+            return size() > maxOrderings;
+        }
+    };
+
+    private ColumnarSnapshot(long version, long[] ids, Map<String, StringColumn> columns, int maxOrderings) {
+        this.version = version;
+        this.ids = ids;
+        this.columns = columns;
+        this.maxOrderings = maxOrderings;
+    }
+
+    /**
+     * @param maxOrderings row orders kept at once; each costs four bytes per row
+     */
+    public static Builder builder(List<String> columnNames, int maxDictionarySize, int maxOrderings) {
+        return new Builder(columnNames, maxDictionarySize, maxOrderings);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * The value of a column in a row; {@code "id"} reads the id, unknown columns read as null.
+     */
+    public Object getValue(String column, int row) {
+        if ("id".equals(column)) {
+            return ids[row];
+        }
+        StringColumn values = columns.get(column);
+        return values == null ? null : values.get(row);
+    }
+
+    /**
+     * Index of the first row whose id is at least {@code id}, or {@link #size()} if there is none.
+     */
+    public int rowAtOrAfter(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Row indexes in the given order, resolved from the snapshot's ids as listed in
+     * that order by {@code orderedIds}, so the order and its tie-breaks are the
+     * ones the source produces. Computed once per order and snapshot; null, and
+     * not kept, if the listed ids are not exactly the snapshot's rows. Callers
+     * must not modify the returned array.
+     */
+    public int[] sortedRows(List<SortColumn> order, Supplier<long[]> orderedIds) {
+        List<SortColumn> key = List.copyOf(order);
+        CompletableFuture<int[]> rows;
+        boolean resolve = false;
+        synchronized (orderings) {
+            rows = orderings.get(key);
+            if (rows == null) {
+                rows = new CompletableFuture<>();
+                orderings.put(key, rows);
+                resolve = true;
+            }
+        }
+        if (resolve) {
+            try {
+                int[] resolved = rowsOf(orderedIds.get());
+                if (resolved == null) {
+                    forget(key, rows);
+                }
+                rows.complete(resolved);
+            } catch (RuntimeException | Error e) {
+                forget(key, rows);
+                rows.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return rows.join();
+    }
+
+    private void forget(List<SortColumn> order, CompletableFuture<int[]> rows) {
+        synchronized (orderings) {
+            orderings.remove(order, rows);
+        }
+    }
+
+    private int[] rowsOf(long[] orderedIds) {
+        if (orderedIds.length != ids.length) {
+            return null;
+        }
+        int[] rows = new int[orderedIds.length];
+        BitSet seen = new BitSet(ids.length);
+        for (int i = 0; i < orderedIds.length; i++) {
+            int row = Arrays.binarySearch(ids, orderedIds[i]);
+            if (row < 0 || seen.get(row)) {
+                return null;
+            }
+            seen.set(row);
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    public long estimatedBytes() {
+        return (long) ids.length * Long.BYTES
+                + columns.values().stream().mapToLong(StringColumn::estimatedBytes).sum();
+    }
+
+    private interface StringColumn {
+        String get(int row);
+
+        long estimatedBytes();
+    }
+
+    /** Codes index into the dictionary; one byte each while the dictionary has at most 256 entries. */
+    private record DictionaryColumn(String[] dictionary, byte[] byteCodes, int[] intCodes) implements StringColumn {
+        @Override
+        public String get(int row) {
+            return dictionary[byteCodes != null ? byteCodes[row] & 0xFF : intCodes[row]];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long dictionaryBytes = Arrays.stream(dictionary).mapToLong(value -> value == null ? 0 : 40 + 2L * value.length()).sum();
+            return dictionaryBytes + (byteCodes != null ? byteCodes.length : (long) intCodes.length * Integer.BYTES);
+        }
+    }
+
+    private record Utf8Column(byte[] data, int[] offsets, BitSet nulls) implements StringColumn {
+        @Override
+        public String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return data.length + (long) offsets.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * Appends rows in id order. Each column starts out dictionary-encoded and
+     * switches to packed UTF-8 once it has more distinct values than the limit.
+     */
+    public static final class Builder {
+        private final List<String> columnNames;
+        private final ColumnBuilder[] columnBuilders;
+        private final int maxOrderings;
+        private long[] ids = new long[1024];
+        private int size;
+
+        private Builder(List<String> columnNames, int maxDictionarySize, int maxOrderings) {
+            this.columnNames = List.copyOf(columnNames);
+            this.maxOrderings = maxOrderings;
+            this.columnBuilders = new ColumnBuilder[columnNames.size()];
+            for (int i = 0; i < columnBuilders.length; i++) {
+                columnBuilders[i] = new ColumnBuilder(maxDictionarySize);
+            }
+        }
+
+        /**
+         * @param values one value per column, in the order the columns were given
+         */
+        public Builder add(long id, String... values) {
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Rows must be added in ascending id order");
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            for (int i = 0; i < columnBuilders.length; i++) {
+                columnBuilders[i].add(size, values[i]);
+            }
+            size++;
+            return this;
+        }
+
+        public ColumnarSnapshot build(long version) {
+            Map<String, StringColumn> columns = new LinkedHashMap<>();
+            for (int i = 0; i < columnBuilders.length; i++) {
+                columns.put(columnNames.get(i), columnBuilders[i].build(size));
+            }
+            return new ColumnarSnapshot(version, Arrays.copyOf(ids, size), columns, maxOrderings);
+        }
+    }
+
+    private static final class ColumnBuilder {
+        private final int maxDictionarySize;
+
+        // Dictionary mode
+        private Map<String, Integer> dictionary = new HashMap<>();
+        private String[] dictionaryValues = new String[16];
+        private int[] codes = new int[1024];
+
+        // UTF-8 mode, once the dictionary grew too large
+        private byte[] data;
+        private int dataSize;
+        private int[] offsets;
+        private BitSet nulls;
+
+        private ColumnBuilder(int maxDictionarySize) {
+            this.maxDictionarySize = maxDictionarySize;
+        }
+
+        void add(int row, String value) {
+            if (dictionary != null) {
+                Integer code = dictionary.get(value);
+                if (code == null && dictionary.size() >= maxDictionarySize) {
+                    switchToUtf8(row);
+                } else {
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.put(value, code);
+                        if (code == dictionaryValues.length) {
+                            dictionaryValues = Arrays.copyOf(dictionaryValues, code * 2);
+                        }
+                        dictionaryValues[code] = value;
+                    }
+                    if (row == codes.length) {
+                        codes = Arrays.copyOf(codes, row * 2);
+                    }
+                    codes[row] = code;
+                    return;
+                }
+            }
+            appendUtf8(row, value);
+        }
+
+        private void switchToUtf8(int rows) {
+            data = new byte[Math.max(1024, rows * 16)];
+            offsets = new int[Math.max(1024, rows * 2)];
+            nulls = new BitSet();
+            for (int row = 0; row < rows; row++) {
+                appendUtf8(row, dictionaryValues[codes[row]]);
+            }
+            dictionary = null;
+            dictionaryValues = null;
+            codes = null;
+        }
+
+        private void appendUtf8(int row, String value) {
+            if (row + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (dataSize + bytes.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + bytes.length));
+                }
+                System.arraycopy(bytes, 0, data, dataSize, bytes.length);
+                dataSize += bytes.length;
+            }
+            offsets[row + 1] = dataSize;
+        }
+
+        StringColumn build(int rows) {
+            if (dictionary == null) {
+                return new Utf8Column(Arrays.copyOf(data, dataSize), Arrays.copyOf(offsets, rows + 1), nulls);
+            }
+            String[] values = Arrays.copyOf(dictionaryValues, dictionary.size());
+            if (values.length <= 256) {
+                byte[] byteCodes = new byte[rows];
+                for (int row = 0; row < rows; row++) {
+                    byteCodes[row] = (byte) codes[row];
+                }
+                return new DictionaryColumn(values, byteCodes, null);
+            }
+            return new DictionaryColumn(values, null, Arrays.copyOf(codes, rows));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.report;
+
+import jakarta.persistence.Tuple;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Forward-only report data source over a stream of projected rows. Rows are
+ * pulled from the underlying cursor as the fill asks for them, so nothing is
+ * materialized up front. Must be closed to release the cursor.
+ */
+public class CursorDataSource implements JRDataSource, AutoCloseable {
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private final Stream<Tuple> rows;
+    private final Iterator<Tuple> iterator;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private Tuple current;
+    private long rowCount;
+    private ReportProgressListener progressListener = ReportProgressListener.NONE;
+
+    public CursorDataSource(Stream<Tuple> rows, List<String> columns) {
+        this.rows = rows;
+        this.iterator = rows.iterator();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes.put(columns.get(i), i);
+        }
+    }
+
+    public void setProgressListener(ReportProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        // Lets a cancelled report job stop the fill at the next row
+        if (Thread.currentThread().isInterrupted()) {
+            throw new JRException("Report fill interrupted");
+        }
+        if (!iterator.hasNext()) {
+            current = null;
+            progressListener.rowsFilled(rowCount);
+            return false;
+        }
+        current = iterator.next();
+        rowCount++;
+        if (rowCount % PROGRESS_INTERVAL == 0) {
+            progressListener.rowsFilled(rowCount);
+        }
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) {
+        Integer index = columnIndexes.get(field.getName());
+        // Fields the query does not project (e.g. computed in the template) read as null
+        return index == null || current == null ? null : current.get(index);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+    }
+}
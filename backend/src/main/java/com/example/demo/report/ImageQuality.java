@@ -0,0 +1,13 @@
+package com.example.demo.report;
+
+/**
+ * Form in which report images are bound into a fill.
+ */
+public enum ImageQuality {
+    /** Scaled down to what a printed page resolves, transparency kept. */
+    PRINT,
+    /** Scaled down further and recompressed as JPEG on a white background. */
+    COMPACT,
+    /** Full resolution, flattened onto white since PDF/A-1 does not allow transparency. */
+    ARCHIVAL
+}
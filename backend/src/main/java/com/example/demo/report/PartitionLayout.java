@@ -0,0 +1,341 @@
+package com.example.demo.report;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JRElementGroup;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRExpressionChunk;
+import net.sf.jasperreports.engine.JRExpressionCollector;
+import net.sf.jasperreports.engine.JRImage;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRReport;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRTextField;
+import net.sf.jasperreports.engine.JRVariable;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignParameter;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.type.BandTypeEnum;
+import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
+import net.sf.jasperreports.engine.type.ResetTypeEnum;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * How a report's rows fall onto pages, for filling it in partitions that each
+ * start on a page boundary. Partitions hold whole pages of rows, so the merged
+ * document has no part-filled pages in the middle. Page numbers and the row
+ * count are shifted by per-partition offsets, and report-time totals come from
+ * parameters. The layout is derived from the band heights, so a partitioned
+ * fill must be checked against it with {@link #pages} and {@link #endsFull}.
+ */
+public final class PartitionLayout {
+    public static final String PAGE_OFFSET_PARAMETER = "PARTITION_PAGE_OFFSET";
+    public static final String ROW_OFFSET_PARAMETER = "PARTITION_ROW_OFFSET";
+    public static final String TOTAL_PAGES_PARAMETER = "PARTITION_TOTAL_PAGES";
+    public static final String TOTAL_ROWS_PARAMETER = "PARTITION_TOTAL_ROWS";
+
+    private static final String PAGE_NUMBER = "PAGE_NUMBER";
+    private static final String REPORT_COUNT = "REPORT_COUNT";
+    // Restart on every page or column, so a partition starting on a new page computes them as a single fill would
+    private static final Set<String> PAGE_LOCAL_VARIABLES = Set.of("PAGE_COUNT", "COLUMN_NUMBER", "COLUMN_COUNT");
+
+    private final int detailHeight;
+    private final int firstPageRows;
+    private final int rowsPerPage;
+    private final int titlePages;
+    private final int columnFooterOffset;
+    private final int lastColumnFooterOffset;
+    private final int pageTop;
+    private final int summaryHeight;
+    private final boolean summaryNewPage;
+    private final boolean usesTotalPages;
+
+    private PartitionLayout(JasperReport report, int detailHeight, boolean usesTotalPages) {
+        this.detailHeight = detailHeight;
+        this.usesTotalPages = usesTotalPages;
+        int bottom = report.getPageHeight() - report.getBottomMargin() - height(report.getColumnFooter());
+        columnFooterOffset = bottom - height(report.getPageFooter());
+        lastColumnFooterOffset = report.getLastPageFooter() == null
+                ? columnFooterOffset : bottom - height(report.getLastPageFooter());
+        pageTop = report.getTopMargin() + height(report.getPageHeader()) + height(report.getColumnHeader());
+        titlePages = report.isTitleNewPage() && report.getTitle() != null ? 1 : 0;
+        rowsPerPage = (columnFooterOffset - pageTop) / detailHeight;
+        firstPageRows = (columnFooterOffset - pageTop - (titlePages == 0 ? height(report.getTitle()) : 0)) / detailHeight;
+        summaryHeight = height(report.getSummary());
+        summaryNewPage = report.isSummaryNewPage();
+    }
+
+    /**
+     * The layout of a report that can be filled in partitions; empty when its
+     * output depends on rows or pages a partition does not see: groups, sort
+     * fields, scriptlets, several columns or detail bands, or variables that
+     * accumulate over the whole report.
+     */
+    public static Optional<PartitionLayout> of(JasperReport report) {
+        if (report.isIgnorePagination() || report.getColumnCount() != 1
+                || notEmpty(report.getGroups()) || notEmpty(report.getSortFields())
+                || report.getScriptletClass() != null || notEmpty(report.getScriptlets())) {
+            return Optional.empty();
+        }
+        JRBand[] details = report.getDetailSection() == null ? null : report.getDetailSection().getBands();
+        if (details == null || details.length != 1 || details[0].getHeight() <= 0
+                || !notEmpty(details[0].getElements())) {
+            return Optional.empty();
+        }
+
+        Map<String, JRVariable> variables = new HashMap<>();
+        for (JRVariable variable : report.getVariables()) {
+            variables.put(variable.getName(), variable);
+        }
+        Set<JRExpression> delayed = delayedExpressions(report);
+        if (delayed == null) {
+            return Optional.empty();
+        }
+        Set<JRExpression> systemExpressions = systemVariableExpressions(report);
+        boolean usesTotalPages = false;
+        for (JRExpression expression : expressions(report)) {
+            if (systemExpressions.contains(expression) || expression.getChunks() == null) {
+                continue;
+            }
+            for (JRExpressionChunk chunk : expression.getChunks()) {
+                byte type = chunk.getType();
+                if (type != JRExpressionChunk.TYPE_VARIABLE) {
+                    if (type != JRExpressionChunk.TYPE_TEXT && type != JRExpressionChunk.TYPE_PARAMETER
+                            && type != JRExpressionChunk.TYPE_FIELD && type != JRExpressionChunk.TYPE_RESOURCE) {
+                        return Optional.empty();
+                    }
+                    continue;
+                }
+                String name = chunk.getText();
+                if (delayed.contains(expression)) {
+                    // Evaluated once the report ends: only totals a partition can be given up front
+                    if (name.equals(PAGE_NUMBER)) {
+                        usesTotalPages = true;
+                    } else if (!name.equals(REPORT_COUNT)) {
+                        return Optional.empty();
+                    }
+                } else if (!name.equals(PAGE_NUMBER) && !name.equals(REPORT_COUNT)
+                        && !PAGE_LOCAL_VARIABLES.contains(name)) {
+                    JRVariable variable = variables.get(name);
+                    ResetTypeEnum reset = variable == null ? null : variable.getResetTypeValue();
+                    if (variable == null || variable.isSystemDefined()
+                            || (reset != ResetTypeEnum.PAGE && reset != ResetTypeEnum.COLUMN && reset != ResetTypeEnum.NONE)) {
+                        return Optional.empty();
+                    }
+                }
+            }
+        }
+
+        PartitionLayout layout = new PartitionLayout(report, details[0].getHeight(), usesTotalPages);
+        return layout.rowsPerPage > 0 && layout.firstPageRows > 0 ? Optional.of(layout) : Optional.empty();
+    }
+
+    /**
+     * The row offset nearest to {@code row} at which a new page starts.
+     */
+    public long alignRowOffset(long row) {
+        if (row <= firstPageRows) {
+            return firstPageRows;
+        }
+        return firstPageRows + (row - firstPageRows + rowsPerPage / 2) / rowsPerPage * rowsPerPage;
+    }
+
+    /**
+     * Pages a partition other than the last fills with {@code rows} rows.
+     */
+    public int pages(boolean first, long rows) {
+        if (!first) {
+            return (int) ceilDiv(rows, rowsPerPage);
+        }
+        return titlePages + (rows <= firstPageRows ? 1 : 1 + (int) ceilDiv(rows - firstPageRows, rowsPerPage));
+    }
+
+    /**
+     * Pages the last partition is expected to fill, summary included.
+     */
+    public int lastPartitionPages(long rows) {
+        int pages = (int) Math.max(1, ceilDiv(rows, rowsPerPage));
+        if (summaryHeight == 0) {
+            return pages;
+        }
+        long rowsOnLastPage = rows - (long) (pages - 1) * rowsPerPage;
+        boolean summaryFits = !summaryNewPage
+                && summaryHeight <= lastColumnFooterOffset - pageTop - rowsOnLastPage * detailHeight;
+        return summaryFits ? pages : pages + 1;
+    }
+
+    /**
+     * Whether report-time page totals have to be checked against the pages the last partition actually filled.
+     */
+    public boolean usesTotalPages() {
+        return usesTotalPages;
+    }
+
+    /**
+     * Whether a partition's last page leaves no room for another row, so a single
+     * fill would also have started a new page after it.
+     */
+    public boolean endsFull(JRPrintPage page) {
+        int lowestDetail = -1;
+        for (JRPrintElement element : page.getElements()) {
+            if (element.getOrigin() != null && element.getOrigin().getBandTypeValue() == BandTypeEnum.DETAIL) {
+                lowestDetail = Math.max(lowestDetail, element.getY() + element.getHeight());
+            }
+        }
+        return lowestDetail >= 0 && columnFooterOffset - lowestDetail < detailHeight;
+    }
+
+    /**
+     * Declares the offset parameters on a partition's design and shifts its page
+     * numbers and row counts by them; report-time values become the totals.
+     */
+    public static void prepareVariant(JasperDesign design) {
+        try {
+            for (String name : new String[]{PAGE_OFFSET_PARAMETER, ROW_OFFSET_PARAMETER,
+                    TOTAL_PAGES_PARAMETER, TOTAL_ROWS_PARAMETER}) {
+                JRDesignParameter parameter = new JRDesignParameter();
+                parameter.setName(name);
+                parameter.setValueClass(Integer.class);
+                design.addParameter(parameter);
+            }
+        } catch (JRException e) {
+            throw new JRRuntimeException(e);
+        }
+
+        Set<JRExpression> delayed = delayedExpressions(design);
+        Set<JRExpression> systemExpressions = systemVariableExpressions(design);
+        for (JRExpression expression : expressions(design)) {
+            if (systemExpressions.contains(expression) || !(expression instanceof JRDesignExpression designExpression)
+                    || expression.getChunks() == null) {
+                continue;
+            }
+            boolean atEnd = delayed != null && delayed.contains(expression);
+            StringBuilder text = new StringBuilder();
+            boolean changed = false;
+            for (JRExpressionChunk chunk : expression.getChunks()) {
+                String name = chunk.getText();
+                switch (chunk.getType()) {
+                    case JRExpressionChunk.TYPE_PARAMETER -> text.append("$P{").append(name).append('}');
+                    case JRExpressionChunk.TYPE_FIELD -> text.append("$F{").append(name).append('}');
+                    case JRExpressionChunk.TYPE_RESOURCE -> text.append("$R{").append(name).append('}');
+                    case JRExpressionChunk.TYPE_VARIABLE -> {
+                        String replacement = replacement(name, atEnd);
+                        changed |= replacement != null;
+                        text.append(replacement != null ? replacement : "$V{" + name + "}");
+                    }
+                    default -> text.append(name);
+                }
+            }
+            if (changed) {
+                designExpression.setText(text.toString());
+            }
+        }
+    }
+
+    private static String replacement(String variable, boolean atEnd) {
+        return switch (variable) {
+            case PAGE_NUMBER -> atEnd ? "$P{" + TOTAL_PAGES_PARAMETER + "}"
+                    : "Integer.valueOf($V{PAGE_NUMBER} + $P{" + PAGE_OFFSET_PARAMETER + "})";
+            case REPORT_COUNT -> atEnd ? "$P{" + TOTAL_ROWS_PARAMETER + "}"
+                    : "Integer.valueOf($V{REPORT_COUNT} + $P{" + ROW_OFFSET_PARAMETER + "})";
+            default -> null;
+        };
+    }
+
+    private static Iterable<JRExpression> expressions(JRReport report) {
+        return JRExpressionCollector.collector(DefaultJasperReportsContext.getInstance(), report).getExpressions();
+    }
+
+    private static Set<JRExpression> systemVariableExpressions(JRReport report) {
+        Set<JRExpression> expressions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (JRVariable variable : report.getVariables()) {
+            if (variable.isSystemDefined()) {
+                if (variable.getExpression() != null) {
+                    expressions.add(variable.getExpression());
+                }
+                if (variable.getInitialValueExpression() != null) {
+                    expressions.add(variable.getInitialValueExpression());
+                }
+            }
+        }
+        return expressions;
+    }
+
+    /**
+     * Expressions of elements evaluated when the report ends; null if an element
+     * waits for a group or master report, which partitions cannot reproduce.
+     */
+    private static Set<JRExpression> delayedExpressions(JRReport report) {
+        Set<JRExpression> delayed = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean[] unsupported = new boolean[1];
+        forEachElement(report, element -> {
+            EvaluationTimeEnum evaluationTime;
+            JRExpression expression;
+            if (element instanceof JRTextField textField) {
+                evaluationTime = textField.getEvaluationTimeValue();
+                expression = textField.getExpression();
+            } else if (element instanceof JRImage image) {
+                evaluationTime = image.getEvaluationTimeValue();
+                expression = image.getExpression();
+            } else {
+                return;
+            }
+            if (evaluationTime == EvaluationTimeEnum.GROUP || evaluationTime == EvaluationTimeEnum.MASTER) {
+                unsupported[0] = true;
+            } else if ((evaluationTime == EvaluationTimeEnum.REPORT || evaluationTime == EvaluationTimeEnum.AUTO)
+                    && expression != null) {
+                delayed.add(expression);
+            }
+        });
+        return unsupported[0] ? null : delayed;
+    }
+
+    private static void forEachElement(JRReport report, Consumer<JRElement> action) {
+        JRBand[] bands = {report.getBackground(), report.getTitle(), report.getPageHeader(), report.getColumnHeader(),
+                report.getColumnFooter(), report.getPageFooter(), report.getLastPageFooter(), report.getSummary(),
+                report.getNoData()};
+        for (JRBand band : bands) {
+            forEachElement(band, action);
+        }
+        if (report.getDetailSection() != null && report.getDetailSection().getBands() != null) {
+            for (JRBand band : report.getDetailSection().getBands()) {
+                forEachElement(band, action);
+            }
+        }
+    }
+
+    private static void forEachElement(JRElementGroup group, Consumer<JRElement> action) {
+        if (group == null || group.getElements() == null) {
+            return;
+        }
+        for (JRElement element : group.getElements()) {
+            action.accept(element);
+            if (element instanceof JRElementGroup nested) {
+                forEachElement(nested, action);
+            }
+        }
+    }
+
+    private static int height(JRBand band) {
+        return band == null ? 0 : band.getHeight();
+    }
+
+    private static boolean notEmpty(Object[] array) {
+        return array != null && array.length > 0;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
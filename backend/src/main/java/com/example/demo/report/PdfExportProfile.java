@@ -0,0 +1,62 @@
+package com.example.demo.report;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Named trade-offs between PDF export time, file size and longevity,
+ * selectable per request. Roughly, on employee_report.jrxml:
+ * <ul>
+ *     <li>{@code fast}: no stream compression, so the least CPU per page but the
+ *     largest files; images at print resolution. The previous behaviour.</li>
+ *     <li>{@code small}: deflated content streams and logos shrunk and stored as
+ *     JPEG; a little more CPU for a much smaller file, best for
+ *     downloads over slow links.</li>
+ *     <li>{@code archival}: PDF/A-1b with an sRGB output intent, tagged for
+ *     accessibility and with full-resolution images; the slowest and largest,
+ *     for documents that must be kept.</li>
+ * </ul>
+ * Fonts are embedded as subsets in every profile: fonts/report-fonts.xml maps
+ * the font names designs use, SansSerif and the default font included, onto
+ * DejaVu faces declared embeddable, which PDF/A requires. A design naming a
+ * font outside that mapping falls back to an unembedded base-14 font and
+ * cannot be exported as archival.
+ * {@code PdfProfileBenchmark} measures the actual time and size of each.
+ */
+public enum PdfExportProfile {
+    FAST("fast", false, ImageQuality.PRINT),
+    SMALL("small", true, ImageQuality.COMPACT),
+    ARCHIVAL("archival", true, ImageQuality.ARCHIVAL);
+
+    private final String profileName;
+    private final boolean compressed;
+    private final ImageQuality imageQuality;
+
+    PdfExportProfile(String profileName, boolean compressed, ImageQuality imageQuality) {
+        this.profileName = profileName;
+        this.compressed = compressed;
+        this.imageQuality = imageQuality;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public ImageQuality getImageQuality() {
+        return imageQuality;
+    }
+
+    public boolean isArchival() {
+        return this == ARCHIVAL;
+    }
+
+    public static Optional<PdfExportProfile> fromName(String name) {
+        return Arrays.stream(values())
+                .filter(profile -> profile.profileName.equalsIgnoreCase(name.trim()))
+                .findFirst();
+    }
+}
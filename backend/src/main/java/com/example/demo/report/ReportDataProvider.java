@@ -0,0 +1,25 @@
+package com.example.demo.report;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+
+import java.util.Map;
+
+/**
+ * Supplies the rows for one report type. Providers are Spring beans, looked up
+ * by report type when the active template of that type is rendered, and own
+ * the lifetime of whatever data source they fill from.
+ */
+public interface ReportDataProvider {
+
+    String getReportType();
+
+    JasperPrint fillReport(JasperReport report, Map<String, Object> parameters,
+                           ReportProgressListener progressListener) throws JRException;
+
+    /**
+     * How many rows a full fill reads, for estimating its cost before admitting it.
+     */
+    long countRows();
+}
@@ -0,0 +1,42 @@
+package com.example.demo.report;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ReportFormat {
+    PDF("pdf", "application/pdf", true),
+    DOCX("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document", true),
+    // Tabular and screen formats have no use for page breaks; they are still filled page by
+    // page, so the virtualizer can swap out rows, and the exporter drops the repeated page bands
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", false),
+    CSV("csv", "text/csv", false),
+    HTML("html", "text/html", false);
+
+    private final String extension;
+    private final String contentType;
+    private final boolean paginated;
+
+    ReportFormat(String extension, String contentType, boolean paginated) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.paginated = paginated;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public boolean isPaginated() {
+        return paginated;
+    }
+
+    public static Optional<ReportFormat> fromExtension(String extension) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(extension.trim()))
+                .findFirst();
+    }
+}
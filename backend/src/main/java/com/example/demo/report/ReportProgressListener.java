@@ -0,0 +1,16 @@
+package com.example.demo.report;
+
+/**
+ * Receives progress callbacks while a report is filled and exported.
+ */
+public interface ReportProgressListener {
+
+    ReportProgressListener NONE = new ReportProgressListener() {
+    };
+
+    default void rowsFilled(long rows) {
+    }
+
+    default void exportStarted() {
+    }
+}
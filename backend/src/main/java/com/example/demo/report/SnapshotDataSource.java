@@ -0,0 +1,82 @@
+package com.example.demo.report;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+/**
+ * Report data source over a row range of a shared {@link ColumnarSnapshot}.
+ * Only holds a position, so any number of fills can read the same snapshot
+ * concurrently without a database connection.
+ */
+public class SnapshotDataSource implements JRDataSource {
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private final ColumnarSnapshot snapshot;
+    private final int[] order;
+    private final int toRow;
+    private int row;
+    private boolean positioned;
+    private long rowCount;
+    private ReportProgressListener progressListener = ReportProgressListener.NONE;
+
+    /**
+     * @param fromRow first row to read
+     * @param toRow   row to stop before
+     */
+    public SnapshotDataSource(ColumnarSnapshot snapshot, int fromRow, int toRow) {
+        this.snapshot = snapshot;
+        this.order = null;
+        this.row = fromRow - 1;
+        this.toRow = toRow;
+    }
+
+    /**
+     * Reads every row of the snapshot in the given order.
+     *
+     * @param order row indexes, as returned by {@link ColumnarSnapshot#sortedRows}
+     */
+    public SnapshotDataSource(ColumnarSnapshot snapshot, int[] order) {
+        this.snapshot = snapshot;
+        this.order = order;
+        this.row = -1;
+        this.toRow = order.length;
+    }
+
+    public void setProgressListener(ReportProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        // Lets a cancelled report job stop the fill at the next row
+        if (Thread.currentThread().isInterrupted()) {
+            throw new JRException("Report fill interrupted");
+        }
+        if (row + 1 >= toRow) {
+            positioned = false;
+            progressListener.rowsFilled(rowCount);
+            return false;
+        }
+        row++;
+        positioned = true;
+        rowCount++;
+        if (rowCount % PROGRESS_INTERVAL == 0) {
+            progressListener.rowsFilled(rowCount);
+        }
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) {
+        if (!positioned) {
+            return null;
+        }
+        return snapshot.getValue(field.getName(), order == null ? row : order[row]);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.report;
+
+/**
+ * One key of a row order pushed down to the data source instead of being
+ * sorted by the fill engine.
+ */
+public record SortColumn(String name, boolean descending) {
+}
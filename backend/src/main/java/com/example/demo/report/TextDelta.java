@@ -0,0 +1,43 @@
+package com.example.demo.report;
+
+import java.util.List;
+
+/**
+ * Changes to a text expressed as splices against the version they were made on,
+ * so an editor can upload what it changed instead of the whole design.
+ * Offsets and lengths count UTF-16 code units, as JavaScript strings do.
+ */
+public record TextDelta(List<Edit> edits) {
+
+    /**
+     * Replaces {@code delete} characters at {@code offset} of the base text with {@code insert}.
+     */
+    public record Edit(int offset, int delete, String insert) {
+    }
+
+    /**
+     * Applies the edits to the text they were made against. Edits must be in
+     * ascending offset order and must not overlap.
+     *
+     * @throws IllegalArgumentException if an edit falls outside the text or overlaps the one before it
+     */
+    public String apply(String base) {
+        if (edits == null || edits.isEmpty()) {
+            return base;
+        }
+        StringBuilder result = new StringBuilder(base.length() + 256);
+        int position = 0;
+        for (Edit edit : edits) {
+            if (edit.offset() < position || edit.delete() < 0 || edit.offset() > base.length() - edit.delete()) {
+                throw new IllegalArgumentException("Edit at offset " + edit.offset() + " deleting " + edit.delete()
+                        + " characters does not fit a text of length " + base.length());
+            }
+            result.append(base, position, edit.offset());
+            if (edit.insert() != null) {
+                result.append(edit.insert());
+            }
+            position = edit.offset() + edit.delete();
+        }
+        return result.append(base, position, base.length()).toString();
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
-} 
\ No newline at end of file
+    // Keyset page: the next rows after the last id seen, without an offset scan. Built with a
+    // constructor expression, so the rows come back detached and never enter the persistence context
+    @Query("select new com.example.demo.entity.Employee(e.id, e.name, e.address, e.phone, e.gender)"
+            + " from Employee e where e.id > :afterId order by e.id")
+    List<Employee> findDetachedAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
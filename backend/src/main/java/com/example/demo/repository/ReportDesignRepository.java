@@ -1,12 +1,23 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.ReportDesign;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface ReportDesignRepository extends JpaRepository<ReportDesign, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<ReportDesign> findByReportName(String reportName);
+
+    // Cheap freshness check that does not transfer the design content; never cached,
+    // it is how changes made by other nodes are noticed
+    @Query("select coalesce(d.version, 0) from ReportDesign d where d.reportName = :reportName")
+    Optional<Long> findVersionByReportName(@Param("reportName") String reportName);
 } 
\ No newline at end of file
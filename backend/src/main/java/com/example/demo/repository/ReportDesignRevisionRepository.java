@@ -0,0 +1,31 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ReportDesignRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReportDesignRevisionRepository extends JpaRepository<ReportDesignRevision, Long> {
+
+    // Lists the history without transferring any design content
+    interface RevisionSummary {
+        Long getVersion();
+
+        Timestamp getCreatedAt();
+    }
+
+    List<RevisionSummary> findByReportNameOrderByVersionDesc(String reportName);
+
+    Optional<ReportDesignRevision> findByReportNameAndVersion(String reportName, Long version);
+
+    @Modifying
+    @Query("delete from ReportDesignRevision r where r.reportName = :reportName and r.version < :version")
+    int deleteOlderThan(@Param("reportName") String reportName, @Param("version") long version);
+}
@@ -1,14 +1,42 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.ReportTemplate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReportTemplateRepository extends JpaRepository<ReportTemplate, Long> {
+    // Served from the query cache until a template changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<ReportTemplate> findByReportType(String reportType);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<ReportTemplate> findByReportTypeAndIsActiveTrue(String reportType);
-} 
\ No newline at end of file
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ReportTemplate> findByIsActiveTrue();
+
+    // Deliberately not cached: this is how changes made by other nodes are noticed
+    List<ActiveTemplateVersion> findVersionsByIsActiveTrue();
+
+    interface ActiveTemplateVersion {
+        Long getId();
+
+        Timestamp getLastModified();
+    }
+
+    // Bypasses the persistence context, so it is flushed before and cleared after
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ReportTemplate t set t.isActive = false, t.lastModified = current_timestamp where t.reportType = :reportType and t.isActive = true")
+    int deactivateByReportType(@Param("reportType") String reportType);
+}
@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ReportTemplate;
+import com.example.demo.repository.ReportTemplateRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of the active template per report type, loaded at startup
+ * and kept in sync by {@link ReportTemplateService} as templates are saved and
+ * deleted on this node. Once the index is older than the revalidation interval
+ * the ids and modification times of the active templates are checked against
+ * the database, and the index is reloaded only when another node has changed them.
+ */
+@Component
+public class ActiveTemplateIndex {
+
+    @Autowired
+    private ReportTemplateRepository templateRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${reports.templates.revalidate-ms:5000}")
+    private long revalidateMs;
+
+    private final Map<String, ActiveTemplate> templates = new ConcurrentHashMap<>();
+
+    private volatile long validatedAtNanos;
+
+    public record ActiveTemplate(Long id, String reportType, String name, String jrxmlContent,
+                                 byte[] compiledReport, Timestamp lastModified) {
+    }
+
+    @PostConstruct
+    void load() {
+        Map<String, ActiveTemplate> loaded = new HashMap<>();
+        templateRepository.findByIsActiveTrue().forEach(template -> loaded.put(template.getReportType(), from(template)));
+        templates.putAll(loaded);
+        templates.keySet().retainAll(loaded.keySet());
+        validatedAtNanos = System.nanoTime();
+    }
+
+    public Optional<ActiveTemplate> get(String reportType) {
+        revalidate();
+        return Optional.ofNullable(templates.get(reportType));
+    }
+
+    public Map<String, ActiveTemplate> getAll() {
+        revalidate();
+        return Map.copyOf(templates);
+    }
+
+    private void revalidate() {
+        if (System.nanoTime() - validatedAtNanos < TimeUnit.MILLISECONDS.toNanos(revalidateMs)) {
+            return;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - validatedAtNanos < TimeUnit.MILLISECONDS.toNanos(revalidateMs)) {
+                return;
+            }
+            Map<Long, Timestamp> current = new HashMap<>();
+            templateRepository.findVersionsByIsActiveTrue()
+                    .forEach(version -> current.put(version.getId(), version.getLastModified()));
+            // Rows saved before the column existed have no modification time, hence no toMap
+            Map<Long, Timestamp> indexed = new HashMap<>();
+            templates.values().forEach(template -> indexed.put(template.id(), template.lastModified()));
+            if (current.equals(indexed)) {
+                validatedAtNanos = System.nanoTime();
+                return;
+            }
+            // Changed elsewhere, so the second-level and query cache entries are stale as well
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            cache.evictEntityData(ReportTemplate.class);
+            cache.evictDefaultQueryRegion();
+            load();
+        }
+    }
+
+    /**
+     * Records a saved template once its transaction commits: an active template
+     * replaces the previous one of its type, an inactive one is dropped if it was active.
+     */
+    void saved(ReportTemplate template) {
+        // Read after commit, once the flush has stamped the modification time
+        afterCommit(() -> {
+            ActiveTemplate saved = from(template);
+            remove(saved.id());
+            if (template.isActive()) {
+                templates.put(saved.reportType(), saved);
+            }
+        });
+    }
+
+    void deleted(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    private void remove(Long id) {
+        templates.values().removeIf(template -> template.id().equals(id));
+    }
+
+    private static ActiveTemplate from(ReportTemplate template) {
+        return new ActiveTemplate(template.getId(), template.getReportType(), template.getName(),
+                template.getJrxmlContent(), template.getCompiledReport(), template.getLastModified());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded LRU cache of compiled reports keyed by the SHA-256 of the JRXML.
+ * Concurrent misses on the same design share a single compilation.
+ */
+@Slf4j
+@Component
+public class CompiledReportCache {
+
+    @Value("${reports.compiled-cache.max-entries:64}")
+    private int maxEntries;
+
+    private final Map<String, JasperReport> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JasperReport> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final ConcurrentHashMap<String, CompletableFuture<JasperReport>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compileCount = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public JasperReport getOrCompile(String jrxml) throws JRException {
+        return getOrCompile(hash(jrxml), () -> compile(jrxml));
+    }
+
+    /**
+     * Like {@link #getOrCompile(String)}, but on a miss deserializes the report
+     * compiled when the design was saved instead of compiling it again. Falls
+     * back to compiling when the stored bytes are missing or no longer load,
+     * e.g. after a JasperReports upgrade.
+     */
+    public JasperReport getOrLoad(String jrxml, byte[] compiledReport) throws JRException {
+        if (compiledReport == null) {
+            return getOrCompile(jrxml);
+        }
+        return getOrCompile(hash(jrxml), () -> {
+            try {
+                long start = System.nanoTime();
+                JasperReport report = (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(compiledReport));
+                loadNanos.add(System.nanoTime() - start);
+                loadCount.increment();
+                return report;
+            } catch (JRException | ClassCastException e) {
+                log.warn("Stored compiled report could not be loaded, compiling from JRXML: {}", e.getMessage());
+                return compile(jrxml);
+            }
+        });
+    }
+
+    /**
+     * Compiles and caches a modified copy of a design, e.g. with bands removed.
+     * Variants are evicted together with the design they were derived from.
+     */
+    public JasperReport getOrCompileVariant(String jrxml, String variant,
+                                            Consumer<JasperDesign> customizer) throws JRException {
+        return getOrCompile(hash(jrxml) + ":" + variant, () -> timed(() -> {
+            JasperDesign design = JRXmlLoader.load(new ByteArrayInputStream(jrxml.getBytes(StandardCharsets.UTF_8)));
+            customizer.accept(design);
+            return JasperCompileManager.compileReport(design);
+        }));
+    }
+
+    private JasperReport compile(String jrxml) throws JRException {
+        return timed(() -> JasperCompileManager.compileReport(
+                new ByteArrayInputStream(jrxml.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Loads of stored reports are timed on their own, so they never dilute the compile average
+    private JasperReport timed(ReportCompiler compiler) throws JRException {
+        long start = System.nanoTime();
+        JasperReport report = compiler.compile();
+        compileNanos.add(System.nanoTime() - start);
+        compileCount.increment();
+        return report;
+    }
+
+    private JasperReport getOrCompile(String key, ReportCompiler compiler) throws JRException {
+        JasperReport report;
+        synchronized (cache) {
+            report = cache.get(key);
+        }
+        if (report != null) {
+            hits.increment();
+            return report;
+        }
+        misses.increment();
+
+        // Only one thread compiles a given design, the others wait for its result
+        CompletableFuture<JasperReport> pending = new CompletableFuture<>();
+        CompletableFuture<JasperReport> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            report = compiler.compile();
+            synchronized (cache) {
+                cache.put(key, report);
+            }
+            pending.complete(report);
+            return report;
+        } catch (JRException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    public void evict(String jrxml) {
+        if (jrxml == null) {
+            return;
+        }
+        String key = hash(jrxml);
+        synchronized (cache) {
+            cache.keySet().removeIf(cached -> {
+                boolean stale = cached.equals(key) || cached.startsWith(key + ":");
+                if (stale) {
+                    evictions.increment();
+                }
+                return stale;
+            });
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            evictions.add(cache.size());
+            cache.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long loads = loadCount.sum();
+        long compiles = compileCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("compilations", compiles);
+        stats.put("totalCompileMillis", compileNanos.sum() / 1_000_000);
+        stats.put("averageCompileMillis", compiles == 0 ? 0 : compileNanos.sum() / compiles / 1_000_000);
+        stats.put("loadedPrecompiled", loads);
+        stats.put("totalLoadMillis", loadNanos.sum() / 1_000_000);
+        stats.put("averageLoadMillis", loads == 0 ? 0 : loadNanos.sum() / loads / 1_000_000);
+        return stats;
+    }
+
+    public static String hash(String jrxml) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jrxml.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static byte[] serialize(JasperReport report) throws JRException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JRSaver.saveObject(report, out);
+        return out.toByteArray();
+    }
+
+    private static JasperReport await(CompletableFuture<JasperReport> future) throws JRException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JRException("Interrupted while waiting for report compilation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JRException jrException) {
+                throw jrException;
+            }
+            throw new JRException("Report compilation failed", e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReportCompiler {
+        JasperReport compile() throws JRException;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that changes whenever employee data changes, used to key rendered
+ * report output. Seeded from the clock so versions from before a restart are
+ * never reused.
+ */
+@Component
+public class EmployeeDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long get() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+        // Bump again once the change is visible to other transactions, so output
+        // rendered from the old rows in between is not cached under the new version
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
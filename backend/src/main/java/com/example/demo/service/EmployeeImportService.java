@@ -0,0 +1,272 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads employees from NDJSON or CSV streams. Lines are parsed one at a time
+ * and written with JDBC batch statements, each batch in its own transaction,
+ * so a bad line or a failing batch is reported without aborting the load.
+ * Rows with an id update that employee, rows without one are inserted.
+ */
+@Slf4j
+@Service
+public class EmployeeImportService {
+
+    private static final String INSERT_SQL = "insert into employees (name, address, phone, gender) values (?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "update employees set name = ?, address = ?, phone = ?, gender = ? where id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // MySQL Connector/J only sends a batch as one statement with rewriteBatchedStatements=true on the JDBC URL
+    @Value("${employees.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${employees.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private record EmployeeRow(long line, Long id, String name, String address, String phone, String gender) {
+    }
+
+    public record ImportError(long fromLine, long toLine, String message) {
+    }
+
+    public static class ImportResult {
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long failed;
+        private long batches;
+        private final List<ImportError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getUpdated() {
+            return updated;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public List<ImportError> getErrors() {
+            return errors;
+        }
+
+        public boolean isErrorsTruncated() {
+            return errorsTruncated;
+        }
+    }
+
+    public ImportResult importEmployees(InputStream in, Format format) throws IOException {
+        ImportResult result = new ImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<EmployeeRow> batch = new ArrayList<>(batchSize);
+        List<String> csvHeader = null;
+
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvHeader == null) {
+                csvHeader = parseCsvLine(text).stream().map(column -> column.trim().toLowerCase()).toList();
+                continue;
+            }
+            result.rowsRead++;
+            try {
+                Map<String, String> values = format == Format.CSV ? csvValues(csvHeader, text) : jsonValues(text);
+                batch.add(toRow(line, values));
+            } catch (Exception e) {
+                result.failed++;
+                reportError(result, new ImportError(line, line, e.getMessage()));
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+        log.info("Imported employees: {} read, {} inserted, {} updated, {} failed in {} batches",
+                result.rowsRead, result.inserted, result.updated, result.failed, result.batches);
+        return result;
+    }
+
+    private void writeBatch(List<EmployeeRow> batch, ImportResult result) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<EmployeeRow> updateRows = new ArrayList<>();
+        for (EmployeeRow row : batch) {
+            if (row.id() == null) {
+                inserts.add(new Object[]{row.name(), row.address(), row.phone(), row.gender()});
+            } else {
+                updates.add(new Object[]{row.name(), row.address(), row.phone(), row.gender(), row.id()});
+                updateRows.add(row);
+            }
+        }
+
+        result.batches++;
+        long fromLine = batch.get(0).line();
+        long toLine = batch.get(batch.size() - 1).line();
+        try {
+            int[] updateCounts = transactionTemplate.execute(status -> {
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+                }
+                return updates.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            });
+            result.inserted += inserts.size();
+            for (int i = 0; i < updateCounts.length; i++) {
+                // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count
+                if (updateCounts[i] == 0) {
+                    result.failed++;
+                    EmployeeRow row = updateRows.get(i);
+                    reportError(result, new ImportError(row.line(), row.line(), "No employee with id " + row.id()));
+                } else {
+                    result.updated++;
+                }
+            }
+            employeeDataVersion.bump();
+            // Plain JDBC bypasses Hibernate, so updated employees must leave the second-level cache
+            if (!updates.isEmpty()) {
+                entityManagerFactory.getCache().evict(Employee.class);
+            }
+        } catch (DataAccessException e) {
+            // The whole batch rolled back; later batches still run
+            result.failed += batch.size();
+            reportError(result, new ImportError(fromLine, toLine, e.getMostSpecificCause().getMessage()));
+            log.warn("Employee import batch for lines {}-{} failed: {}", fromLine, toLine, e.getMessage());
+        }
+    }
+
+    private void reportError(ImportResult result, ImportError error) {
+        if (result.errors.size() < maxReportedErrors) {
+            result.errors.add(error);
+        } else {
+            result.errorsTruncated = true;
+        }
+    }
+
+    private Map<String, String> jsonValues(String text) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        objectMapper.readTree(text).fields().forEachRemaining(field ->
+                values.put(field.getKey(), field.getValue().isNull() ? null : field.getValue().asText()));
+        return values;
+    }
+
+    private static Map<String, String> csvValues(List<String> header, String text) {
+        List<String> columns = parseCsvLine(text);
+        if (columns.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + columns.size());
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            values.put(header.get(i), columns.get(i).isEmpty() ? null : columns.get(i));
+        }
+        return values;
+    }
+
+    private static EmployeeRow toRow(long line, Map<String, String> values) {
+        String id = values.get("id");
+        return new EmployeeRow(line,
+                id == null || id.isBlank() ? null : Long.valueOf(id.trim()),
+                required(values, "name"),
+                required(values, "address"),
+                required(values, "phone"),
+                required(values, "gender"));
+    }
+
+    private static String required(Map<String, String> values, String field) {
+        String value = values.get(field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with "" escapes.
+     * Quoted fields cannot span lines.
+     */
+    static List<String> parseCsvLine(String text) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+}
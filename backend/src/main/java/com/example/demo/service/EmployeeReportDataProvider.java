@@ -0,0 +1,351 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ColumnarSnapshot;
+import com.example.demo.report.CursorDataSource;
+import com.example.demo.report.ReportDataProvider;
+import com.example.demo.report.ReportProgressListener;
+import com.example.demo.report.SnapshotDataSource;
+import com.example.demo.report.SortColumn;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRGroup;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRSortField;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
+import net.sf.jasperreports.engine.type.SortOrderEnum;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds employee rows into report fills, from the shared in-memory snapshot
+ * when there is one, otherwise streamed from the database selecting only the
+ * columns a compiled report declares as fields. Data sources returned by
+ * {@link #open} need an enclosing (read-only) transaction for as long as they
+ * are open.
+ */
+@Component
+public class EmployeeReportDataProvider implements ReportDataProvider {
+
+    private static final Set<String> EMPLOYEE_COLUMNS = Set.copyOf(EmployeeService.FIELDS);
+    private static final Pattern FIELD_EXPRESSION = Pattern.compile("\\$F\\{(\\w+)}");
+    private static final IdRange ALL_ROWS = new IdRange(null, null);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeeSnapshotCache employeeSnapshotCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Rows per round trip; Connector/J honours it because the app defaults turn on useCursorFetch
+    @Value("${reports.datasource.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    private TransactionTemplate readOnlyTransaction;
+    private volatile RowCount rowCount = new RowCount(Long.MIN_VALUE, 0);
+
+    private record RowCount(long dataVersion, long rows) {
+    }
+
+    @PostConstruct
+    void start() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public String getReportType() {
+        return "employee_report";
+    }
+
+    @Override
+    public JasperPrint fillReport(JasperReport report, Map<String, Object> parameters,
+                                  ReportProgressListener progressListener) throws JRException {
+        return fill(report, parameters, ALL_ROWS, pushdownOrder(report).orElse(List.of()), progressListener);
+    }
+
+    /**
+     * Fills with rows already in the given order, for a report whose sort
+     * fields were compiled out because they were pushed down.
+     */
+    public JasperPrint fillSorted(JasperReport report, Map<String, Object> parameters, List<SortColumn> order,
+                                  ReportProgressListener progressListener) throws JRException {
+        return fill(report, parameters, ALL_ROWS, order, progressListener);
+    }
+
+    /**
+     * Fills one id range of the table, for partitioned parallel fills. Each
+     * partition streamed from the database runs in its own read-only transaction.
+     */
+    public JasperPrint fillRange(JasperReport report, Map<String, Object> parameters, IdRange range,
+                                 ReportProgressListener progressListener) throws JRException {
+        return fill(report, parameters, range, List.of(), progressListener);
+    }
+
+    /**
+     * Fills from the first {@code maxRows} employees only, for previews whose
+     * cost must not grow with the table.
+     */
+    @Transactional(readOnly = true)
+    public JasperPrint fillPreview(JasperReport report, Map<String, Object> parameters, int maxRows) throws JRException {
+        parameters.put(JRParameter.REPORT_MAX_COUNT, maxRows);
+        try (CursorDataSource dataSource = open(report, ALL_ROWS, pushdownOrder(report).orElse(List.of()), maxRows)) {
+            return JasperFillManager.fillReport(report, parameters, dataSource);
+        }
+    }
+
+    /**
+     * The employee count, queried again only after the data changed.
+     */
+    @Override
+    public long countRows() {
+        long version = employeeDataVersion.get();
+        RowCount cached = rowCount;
+        if (cached.dataVersion() != version) {
+            ColumnarSnapshot snapshot = employeeSnapshotCache.current().orElse(null);
+            long rows = snapshot != null && snapshot.getVersion() == version
+                    ? snapshot.size()
+                    : readOnlyTransaction.execute(status -> entityManager
+                            .createQuery("select count(e) from Employee e", Long.class)
+                            .getSingleResult());
+            cached = new RowCount(version, rows);
+            rowCount = cached;
+        }
+        return cached.rows();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasRows() {
+        return !entityManager.createQuery("select e.id from Employee e", Long.class)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * The row order a report's sort fields, or else its groups, ask for, when it
+     * can be produced without the fill engine: sort fields on employee columns,
+     * and groups keyed on a plain employee field, outermost first. Empty when a
+     * sort field refers to a variable or another column, so only the engine can sort.
+     */
+    public Optional<List<SortColumn>> pushdownOrder(JasperReport report) {
+        List<SortColumn> order = new ArrayList<>();
+        JRSortField[] sortFields = report.getSortFields();
+        if (sortFields != null && sortFields.length > 0) {
+            for (JRSortField sortField : sortFields) {
+                if (sortField.getType() != SortFieldTypeEnum.FIELD || !EMPLOYEE_COLUMNS.contains(sortField.getName())) {
+                    return Optional.empty();
+                }
+                order.add(new SortColumn(sortField.getName(), sortField.getOrder() == SortOrderEnum.DESCENDING));
+            }
+            return Optional.of(order);
+        }
+
+        // Groups only break correctly on rows sorted by their key
+        JRGroup[] groups = report.getGroups();
+        if (groups != null) {
+            for (JRGroup group : groups) {
+                JRExpression expression = group.getExpression();
+                Matcher field = expression == null ? null : FIELD_EXPRESSION.matcher(expression.getText().trim());
+                if (field == null || !field.matches() || !EMPLOYEE_COLUMNS.contains(field.group(1))) {
+                    break; // inner groups can only be ordered within the outer ones
+                }
+                order.add(new SortColumn(field.group(1), false));
+            }
+        }
+        return Optional.of(order);
+    }
+
+    /**
+     * Splits the table into at most {@code maxPartitions} contiguous id ranges
+     * of roughly equal row count, each holding at least {@code minRowsPerPartition} rows.
+     *
+     * @param alignRowOffset moves a split to the nearest row offset it may fall on, e.g. a page boundary
+     */
+    @Transactional(readOnly = true)
+    public List<Partition> partition(int maxPartitions, long minRowsPerPartition, LongUnaryOperator alignRowOffset) {
+        Optional<ColumnarSnapshot> snapshot = employeeSnapshotCache.get();
+        long rowCount = snapshot.isPresent()
+                ? snapshot.get().size()
+                : entityManager.createQuery("select count(e) from Employee e", Long.class).getSingleResult();
+        int partitions = (int) Math.max(1, Math.min(maxPartitions, rowCount / Math.max(1, minRowsPerPartition)));
+
+        List<Partition> ranges = new ArrayList<>(partitions);
+        Long lowerBound = null;
+        long firstRow = 0;
+        for (int i = 1; i < partitions; i++) {
+            long offset = alignRowOffset.applyAsLong(rowCount * i / partitions);
+            if (offset <= firstRow || offset >= rowCount) {
+                continue;
+            }
+            // The id at each split offset becomes the exclusive upper bound of the previous range
+            Long boundary = snapshot.isPresent()
+                    ? snapshot.get().getId((int) offset)
+                    : entityManager.createQuery("select e.id from Employee e order by e.id", Long.class)
+                    .setFirstResult((int) offset)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            ranges.add(new Partition(new IdRange(lowerBound, boundary), firstRow, offset - firstRow));
+            lowerBound = boundary;
+            firstRow = offset;
+        }
+        ranges.add(new Partition(new IdRange(lowerBound, null), firstRow, rowCount - firstRow));
+        return ranges;
+    }
+
+    private JasperPrint fill(JasperReport report, Map<String, Object> parameters, IdRange range,
+                             List<SortColumn> order, ReportProgressListener progressListener) throws JRException {
+        // Concurrent fills share one in-memory copy of the table while the data is
+        // unchanged, and need no database connection while they fill
+        Optional<ColumnarSnapshot> snapshot = employeeSnapshotCache.get();
+        if (snapshot.isPresent() && !order.isEmpty()) {
+            // Ordered by the database, so its collation decides the order as it does for a
+            // streamed fill; listed once per data version and shared by every fill asking for it
+            ColumnarSnapshot rows = snapshot.get();
+            int[] sortedRows = rows.sortedRows(order, () -> orderedIds(order));
+            if (sortedRows != null) {
+                SnapshotDataSource dataSource = new SnapshotDataSource(rows, sortedRows);
+                dataSource.setProgressListener(progressListener);
+                return JasperFillManager.fillReport(report, parameters, dataSource);
+            }
+            // The table changed since the snapshot was taken; stream it instead
+        } else if (snapshot.isPresent()) {
+            ColumnarSnapshot rows = snapshot.get();
+            int fromRow = range.fromInclusive() == null ? 0 : rows.rowAtOrAfter(range.fromInclusive());
+            int toRow = range.toExclusive() == null ? rows.size() : rows.rowAtOrAfter(range.toExclusive());
+            SnapshotDataSource dataSource = new SnapshotDataSource(rows, fromRow, toRow);
+            dataSource.setProgressListener(progressListener);
+            return JasperFillManager.fillReport(report, parameters, dataSource);
+        }
+
+        try {
+            return readOnlyTransaction.execute(status -> {
+                try (CursorDataSource dataSource = open(report, range, order, 0)) {
+                    dataSource.setProgressListener(progressListener);
+                    return JasperFillManager.fillReport(report, parameters, dataSource);
+                } catch (JRException e) {
+                    throw new FillFailedException(e);
+                }
+            });
+        } catch (FillFailedException e) {
+            throw (JRException) e.getCause();
+        }
+    }
+
+    /** Carries a checked fill exception out of the transaction callback. */
+    private static class FillFailedException extends RuntimeException {
+        FillFailedException(JRException cause) {
+            super(cause);
+        }
+    }
+
+    public CursorDataSource open(JasperReport report) {
+        return open(report, ALL_ROWS, List.of(), 0);
+    }
+
+    private CursorDataSource open(JasperReport report, IdRange range, List<SortColumn> order, int maxRows) {
+        List<String> columns = projectedColumns(report);
+        List<String> conditions = new ArrayList<>();
+        if (range.fromInclusive() != null) {
+            conditions.add("e.id >= :fromId");
+        }
+        if (range.toExclusive() != null) {
+            conditions.add("e.id < :toId");
+        }
+        String jpql = columns.stream()
+                .map(column -> "e." + column)
+                .collect(Collectors.joining(", ", "select ", " from Employee e"))
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + orderBy(order);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (range.fromInclusive() != null) {
+            query.setParameter("fromId", range.fromInclusive());
+        }
+        if (range.toExclusive() != null) {
+            query.setParameter("toId", range.toExclusive());
+        }
+        if (maxRows > 0) {
+            query.setMaxResults(maxRows);
+        }
+        return new CursorDataSource(query.getResultStream(), columns);
+    }
+
+    /**
+     * Employee ids in the given order, as a streamed fill would read the rows.
+     */
+    private long[] orderedIds(List<SortColumn> order) {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select e.id from Employee e" + orderBy(order), Long.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .mapToLong(Long::longValue)
+                .toArray());
+    }
+
+    // Ties fall back to id order, on every path
+    private static String orderBy(List<SortColumn> order) {
+        return order.stream()
+                .map(column -> "e." + column.name() + (column.descending() ? " desc" : ""))
+                .collect(Collectors.joining(", ", " order by ", order.isEmpty() ? "e.id" : ", e.id"));
+    }
+
+    public record IdRange(Long fromInclusive, Long toExclusive) {
+    }
+
+    /**
+     * An id range together with the offset of its first row in id order and the
+     * number of rows it held when the table was split.
+     */
+    public record Partition(IdRange range, long firstRow, long rows) {
+    }
+
+    private List<String> projectedColumns(JasperReport report) {
+        List<String> columns = new ArrayList<>();
+        JRField[] fields = report.getFields();
+        if (fields != null) {
+            for (JRField field : fields) {
+                // Only whitelisted attribute names ever reach the query text
+                if (EMPLOYEE_COLUMNS.contains(field.getName()) && !columns.contains(field.getName())) {
+                    columns.add(field.getName());
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            columns.add("id");
+        }
+        return columns;
+    }
+}
@@ -1,140 +1,304 @@
 package com.example.demo.service;
 
-import com.example.demo.entity.Employee;
-import com.example.demo.entity.ReportDesign;
-import com.example.demo.repository.EmployeeRepository;
-import com.example.demo.repository.ReportDesignRepository;
+import com.example.demo.entity.ReportDesignRevision;
+import com.example.demo.exception.DesignVersionConflictException;
+import com.example.demo.exception.InvalidReportDesignException;
+import com.example.demo.report.CountingOutputStream;
+import com.example.demo.report.ImageQuality;
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.report.ReportProgressListener;
+import com.example.demo.report.TextDelta;
+import com.example.demo.repository.ReportDesignRevisionRepository;
+import lombok.extern.slf4j.Slf4j;
 import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+@Slf4j
 @Service
 public class EmployeeReportService {
+    private static final String EMPLOYEE_REPORT = "employee_report";
+
+    @Autowired
+    private ReportDesignStore reportDesignStore;
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ParallelReportFiller parallelReportFiller;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private ReportVirtualizerFactory reportVirtualizerFactory;
 
     @Autowired
-    private ReportDesignRepository reportDesignRepository;
+    private RenderLimiter renderLimiter;
 
     public String getReportDesign() throws Exception {
-        System.out.println("Getting report design from database...");
-        
-        // First try to get from database
-        Optional<ReportDesign> existingDesign = reportDesignRepository.findByReportName("employee_report");
+        return getStoredDesign().content();
+    }
+
+    public ReportDesignStore.StoredDesign getStoredDesign() throws Exception {
+        // Served from memory; the store only goes to the database to revalidate or reload
+        Optional<ReportDesignStore.StoredDesign> existingDesign = reportDesignStore.get(EMPLOYEE_REPORT);
         if (existingDesign.isPresent()) {
-            ReportDesign design = existingDesign.get();
-            System.out.println("Found design in database with ID: " + design.getId());
-            System.out.println("Design content length: " + design.getDesignContent().length());
-            
+            ReportDesignStore.StoredDesign design = existingDesign.get();
+
             // Validate that the content is not empty
-            if (design.getDesignContent() == null || design.getDesignContent().isBlank()) {
-                System.err.println("WARNING: Design found in database but content is empty!");
+            if (design.content() == null || design.content().isBlank()) {
+                log.warn("Design id={} found in database but content is empty", design.id());
             } else {
-                return design.getDesignContent();
+                return design;
             }
         } else {
-            System.out.println("No design found in database, loading default template");
+            log.info("No design found in database, loading default template");
         }
 
         // If not in database or content is empty, get from classpath
         try (InputStream reportStream = new ClassPathResource("employee_report.jrxml").getInputStream()) {
             String defaultDesign = StreamUtils.copyToString(reportStream, StandardCharsets.UTF_8);
-            System.out.println("Loaded default design from classpath, length: " + defaultDesign.length());
-            
+
             // Save default design to database
-            ReportDesign reportDesign = new ReportDesign();
-            reportDesign.setReportName("employee_report");
-            reportDesign.setDesignContent(defaultDesign);
-            
-            ReportDesign savedDesign = reportDesignRepository.saveAndFlush(reportDesign);
-            System.out.println("Saved default design to database with ID: " + savedDesign.getId());
-            
-            return defaultDesign;
+            ReportDesignStore.StoredDesign savedDesign = reportDesignStore.save(EMPLOYEE_REPORT, defaultDesign,
+                    compile(defaultDesign));
+            log.info("Saved default design to database with id={}", savedDesign.id());
+            return savedDesign;
         }
     }
 
-    public void saveReportDesign(String designContent) {
+    /**
+     * The current design in compiled form, e.g. for estimating what rendering it costs.
+     */
+    public JasperReport getCompiledReport() throws Exception {
+        ReportDesignStore.StoredDesign design = getStoredDesign();
+        return compiledReportCache.getOrLoad(design.content(), design.compiledReport());
+    }
+
+    /**
+     * Saves a new design.
+     *
+     * @param expectedVersion the design version the change was made against, or null to save unconditionally
+     * @param expectedHash    content hash of that version, or null to check the version only
+     * @throws DesignVersionConflictException if the design is no longer at the expected version
+     */
+    public ReportDesignStore.StoredDesign saveReportDesign(String designContent, Long expectedVersion,
+                                                           String expectedHash) {
         try {
-            System.out.println("Saving design content with length: " + designContent.length());
-            System.out.println("First 100 chars: " + designContent.substring(0, Math.min(100, designContent.length())));
-            
-            // Try to find existing design
-            Optional<ReportDesign> existingDesignOpt = reportDesignRepository.findByReportName("employee_report");
-            
-            ReportDesign reportDesign;
-            if (existingDesignOpt.isPresent()) {
-                System.out.println("Found existing design with ID: " + existingDesignOpt.get().getId());
-                reportDesign = existingDesignOpt.get();
-            } else {
-                System.out.println("Creating new report design entity");
-                reportDesign = new ReportDesign();
-                reportDesign.setReportName("employee_report");
-            }
-            
-            // Set content and save
-            reportDesign.setDesignContent(designContent);
-            
-            // Ensure content is set properly
-            System.out.println("Content set in entity, length: " + reportDesign.getDesignContent().length());
-            
-            // Save and flush to ensure immediate persistence
-            ReportDesign savedDesign = reportDesignRepository.saveAndFlush(reportDesign);
-            
-            // Log success information
-            System.out.println("Saved design with ID: " + savedDesign.getId());
-            System.out.println("Saved content length: " + savedDesign.getDesignContent().length());
-            
-            // Verify saved design by immediately retrieving it
-            Optional<ReportDesign> verifyDesign = reportDesignRepository.findById(savedDesign.getId());
-            if (verifyDesign.isPresent()) {
-                System.out.println("Verification successful - design found in database");
-                System.out.println("Verified content length: " + verifyDesign.get().getDesignContent().length());
-            } else {
-                System.err.println("WARNING: Could not verify design was saved - not found in database!!!");
+            // Compiling first rejects an invalid design before anything is replaced
+            byte[] compiledReport = compile(designContent);
+            Optional<ReportDesignStore.StoredDesign> previous = reportDesignStore.get(EMPLOYEE_REPORT);
+            // Versions restart when a design is recreated, so the version alone may name other content
+            if (expectedVersion != null && expectedHash != null && previous.isPresent()
+                    && !expectedHash.equals(previous.get().hash())) {
+                throw new DesignVersionConflictException("Design " + EMPLOYEE_REPORT
+                        + " no longer has the content it had at version " + expectedVersion, previous.get().version());
             }
+
+            ReportDesignStore.StoredDesign savedDesign = reportDesignStore.save(EMPLOYEE_REPORT, designContent,
+                    compiledReport, expectedVersion);
+
+            // The old design will not be requested again, drop its compiled form
+            previous.filter(existing -> !existing.content().equals(designContent))
+                    .ifPresent(existing -> compiledReportCache.evict(existing.content()));
+            log.info("Saved report design id={}, version={}, length={}",
+                    savedDesign.id(), savedDesign.version(), designContent.length());
+            return savedDesign;
+        } catch (DesignVersionConflictException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Error saving report design: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error saving report design", e);
             throw e; // rethrow to notify the controller
         }
     }
 
-    public byte[] exportEmployeeReport() throws Exception {
-        List<Employee> employees = employeeRepository.findAll();
-        JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(employees);
+    /**
+     * Applies an editor's changes to the design version they were made against
+     * and saves the result.
+     *
+     * @param baseHash content hash of the base version, or null to check the version only
+     * @throws DesignVersionConflictException if the design is no longer at {@code baseVersion}
+     * @throws InvalidReportDesignException if the edits do not fit the design or the result does not compile
+     */
+    public ReportDesignStore.StoredDesign patchReportDesign(long baseVersion, String baseHash,
+                                                            TextDelta delta) throws Exception {
+        ReportDesignStore.StoredDesign current = getStoredDesign();
+        if (current.version() != baseVersion || (baseHash != null && !baseHash.equals(current.hash()))) {
+            throw new DesignVersionConflictException("Design " + EMPLOYEE_REPORT + " is no longer at version "
+                    + baseVersion, current.version());
+        }
+        String patched;
+        try {
+            patched = delta.apply(current.content());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidReportDesignException("Design edits do not apply: " + e.getMessage(), e);
+        }
+        return saveReportDesign(patched, baseVersion, baseHash);
+    }
+
+    public List<ReportDesignRevisionRepository.RevisionSummary> getDesignHistory() {
+        return reportDesignStore.getHistory(EMPLOYEE_REPORT);
+    }
+
+    public Optional<ReportDesignRevision> getDesignRevision(long version) {
+        return reportDesignStore.getRevision(EMPLOYEE_REPORT, version);
+    }
+
+    /**
+     * Identifies the output an export in the given format would produce right now,
+     * for the rendered-output cache and HTTP ETags.
+     */
+    public String getOutputCacheKey(ReportFormat format, PdfExportProfile profile) throws Exception {
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("createdBy", "Jasper Report System");
+        // Logos registered at runtime change the output without touching the design or data
+        parameters.put("images", reportImageRegistry.getVersion());
+        if (format == ReportFormat.PDF) {
+            parameters.put("profile", profile.getProfileName());
+        }
+        return ReportOutputCache.key(getStoredDesign().hash(), employeeDataVersion.get(),
+                format.getExtension(), parameters);
+    }
+
+    public byte[] exportEmployeeReport() throws Exception {
+        ByteArrayOutputStream pdfStream = new ByteArrayOutputStream();
+        exportEmployeeReport(pdfStream);
+        return pdfStream.toByteArray();
+    }
 
-        // Get design from database
-        String designContent = getReportDesign();
-        JasperReport jasperReport = JasperCompileManager.compileReport(
-                new ByteArrayInputStream(designContent.getBytes(StandardCharsets.UTF_8))
-        );
+    public void exportEmployeeReport(OutputStream out) throws Exception {
+        exportEmployeeReport(out, ReportFormat.PDF, ReportProgressListener.NONE);
+    }
 
-        // Don't close these streams - let JasperReports handle them
-        InputStream logoLeftStream = new ClassPathResource("logo.png").getInputStream();
-        InputStream logoRightStream = new ClassPathResource("organization_logo.png").getInputStream();
-        parameters.put("logoLeft", logoLeftStream);
-        parameters.put("logoRight", logoRightStream);
+    public void exportEmployeeReport(OutputStream out, ReportFormat format,
+                                     ReportProgressListener progressListener) throws Exception {
+        exportEmployeeReport(out, format, reportExporter.getDefaultProfile(), progressListener);
+    }
 
-        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
-        byte[] pdfBytes = JasperExportManager.exportReportToPdf(jasperPrint);
+    /**
+     * @param profile PDF export profile, which also decides the image quality bound into the fill
+     */
+    public void exportEmployeeReport(OutputStream out, ReportFormat format, PdfExportProfile profile,
+                                     ReportProgressListener progressListener) throws Exception {
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        ImageQuality imageQuality = format == ReportFormat.PDF ? profile.getImageQuality() : ImageQuality.PRINT;
+        fillAndExport(format.getExtension(), imageQuality, progressListener, jasperPrint -> {
+            renderLimiter.export(spool -> reportExporter.export(jasperPrint, format, profile, spool), countingOut);
+            countingOut.flush();
+            ReportRecording recording = reportMetrics.current();
+            if (recording != null) {
+                recording.outputBytes(countingOut.getCount());
+            }
+        });
+    }
 
-        // Close streams after PDF generation
-        logoLeftStream.close();
-        logoRightStream.close();
+    /**
+     * Fills the report once and writes it to the zip in every requested format.
+     *
+     * @param profile PDF export profile; when the bundle holds a PDF its image quality is bound into
+     *                the shared fill, so the other formats carry the same images
+     */
+    public void exportEmployeeReportBundle(ZipOutputStream zip, Set<ReportFormat> formats,
+                                           PdfExportProfile profile) throws Exception {
+        ImageQuality imageQuality = formats.contains(ReportFormat.PDF) ? profile.getImageQuality() : ImageQuality.PRINT;
+        fillAndExport("zip", imageQuality, ReportProgressListener.NONE, jasperPrint -> {
+            for (ReportFormat format : formats) {
+                zip.putNextEntry(new ZipEntry("employee_report." + format.getExtension()));
+                renderLimiter.export(spool -> reportExporter.export(jasperPrint, format, profile, spool), zip);
+                zip.closeEntry();
+            }
+        });
+    }
+
+    private void fillAndExport(String formatTag, ImageQuality imageQuality,
+                               ReportProgressListener progressListener, ExportAction exportAction) throws Exception {
+        try (ReportRecording recording = reportMetrics.start("employee_report", formatTag)) {
+            // Get design from database
+            ReportDesignStore.StoredDesign design = recording.time("design", this::getStoredDesign);
+            String designContent = design.content();
+            JasperReport jasperReport = recording.time("compile",
+                    () -> compiledReportCache.getOrLoad(designContent, design.compiledReport()));
+
+            List<JRSwapFileVirtualizer> virtualizers = new ArrayList<>();
+            try {
+                // Large tables are split into id ranges that fill in parallel, each streamed
+                // from its own database cursor with its own virtualizer
+                ReportProgressListener trackedListener = recording.track(progressListener);
+                // The filler takes render permits itself, one per partition filling at a time
+                JasperPrint jasperPrint = recording.time("fill", () -> parallelReportFiller.fill(
+                        designContent,
+                        () -> createFillParameters(jasperReport, imageQuality, virtualizers),
+                        trackedListener));
+                recording.pages(jasperPrint.getPages().size());
+                virtualizers.forEach(virtualizer -> virtualizer.setReadOnly(true));
+                progressListener.exportStarted();
+                // The export action takes a render permit only while it writes to its spool
+                recording.time("export", () -> {
+                    exportAction.export(jasperPrint);
+                    return null;
+                });
+            } finally {
+                virtualizers.forEach(JRSwapFileVirtualizer::cleanup);
+            }
+        }
+    }
+
+    /**
+     * Compiles a design into the cache and returns the serialized report to
+     * store next to it.
+     */
+    private byte[] compile(String designContent) {
+        try {
+            return CompiledReportCache.serialize(compiledReportCache.getOrCompile(designContent));
+        } catch (JRException e) {
+            throw new InvalidReportDesignException("Report design does not compile: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Object> createFillParameters(JasperReport jasperReport, ImageQuality imageQuality,
+                                                     List<JRSwapFileVirtualizer> virtualizers) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("createdBy", "Jasper Report System");
+
+        // Logos come pre-decoded from the shared registry instead of fresh classpath streams
+        reportImageRegistry.bindImageParameters(jasperReport, parameters, imageQuality);
+
+        // Filled pages beyond the in-memory limit are swapped out to disk
+        JRSwapFileVirtualizer virtualizer = reportVirtualizerFactory.create();
+        virtualizers.add(virtualizer);
+        parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        return parameters;
+    }
 
-        return pdfBytes;
+    @FunctionalInterface
+    private interface ExportAction {
+        void export(JasperPrint jasperPrint) throws Exception;
     }
-}
\ No newline at end of file
+}
@@ -2,28 +2,100 @@ package com.example.demo.service;
 
 import com.example.demo.entity.Employee;
 import com.example.demo.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class EmployeeService {
 
+    // Attributes a client may select, in the order they are returned
+    public static final List<String> FIELDS = List.of("id", "name", "address", "phone", "gender");
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${employees.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${employees.page.max-size:1000}")
+    private int maxPageSize;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
+    /**
+     * One page of employees after the given id, selecting only the requested
+     * fields. The id is always selected since it is the cursor for the next page.
+     *
+     * @param afterId last id of the previous page, or null for the first page
+     * @param size    requested page size, capped at the configured maximum
+     * @param fields  attribute names from {@link #FIELDS}, or empty for all of them
+     */
+    @Transactional(readOnly = true)
+    public EmployeePage getEmployeePage(Long afterId, Integer size, Collection<String> fields) {
+        if (!FIELDS.containsAll(fields)) {
+            throw new IllegalArgumentException("Unknown employee fields, expected any of " + FIELDS);
+        }
+        List<String> columns = FIELDS.stream()
+                .filter(field -> field.equals("id") || fields.isEmpty() || fields.contains(field))
+                .toList();
+        int pageSize = Math.min(size == null || size <= 0 ? defaultPageSize : size, maxPageSize);
+
+        // Keyset pagination: seeks past the last id instead of scanning an offset. The select
+        // list is the client's field choice, which a fixed interface projection cannot express
+        // without fetching every column, so the query is built here and returns tuples
+        String jpql = columns.stream()
+                .map(column -> "e." + column)
+                .collect(Collectors.joining(", ", "select ", " from Employee e"))
+                + (afterId == null ? "" : " where e.id > :afterId")
+                + " order by e.id";
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                // One extra row tells whether there is a next page
+                .setMaxResults(pageSize + 1);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+
+        List<Tuple> rows = query.getResultList();
+        Long nextAfterId = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextAfterId = rows.get(pageSize - 1).get(0, Long.class);
+        }
+        return new EmployeePage(columns, rows, nextAfterId);
+    }
+
+    public record EmployeePage(List<String> fields, List<Tuple> rows, Long nextAfterId) {
+    }
+
     public Optional<Employee> getEmployeeById(Long id) {
         return employeeRepository.findById(id);
     }
 
     public Employee createEmployee(Employee employee) {
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        employeeDataVersion.bump();
+        return saved;
     }
 
     public Employee updateEmployee(Long id, Employee employeeDetails) {
@@ -35,12 +107,15 @@ public class EmployeeService {
         employee.setPhone(employeeDetails.getPhone());
         employee.setGender(employeeDetails.getGender());
 
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        employeeDataVersion.bump();
+        return saved;
     }
 
     public void deleteEmployee(Long id) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Employee not found with id: " + id));
         employeeRepository.delete(employee);
+        employeeDataVersion.bump();
     }
 } 
\ No newline at end of file
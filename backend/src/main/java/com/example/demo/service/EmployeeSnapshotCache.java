@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ColumnarSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Holds one columnar copy of the employee table that all concurrent report
+ * fills read from, rebuilt on demand once the employee data version moves on.
+ */
+@Slf4j
+@Component
+public class EmployeeSnapshotCache {
+
+    private static final List<String> COLUMNS = List.of("name", "address", "phone", "gender");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    @Value("${reports.snapshot.enabled:true}")
+    private boolean enabled;
+
+    // Larger tables are streamed from a cursor per fill instead of held in memory
+    @Value("${reports.snapshot.max-rows:2000000}")
+    private long maxRows;
+
+    // Columns with more distinct values than this are stored as packed UTF-8
+    @Value("${reports.snapshot.max-dictionary-size:4096}")
+    private int maxDictionarySize;
+
+    // Sort orders each snapshot keeps resolved, least recently used dropped first
+    @Value("${reports.snapshot.max-orderings:8}")
+    private int maxOrderings;
+
+    @Value("${reports.datasource.fetch-size:1000}")
+    private int fetchSize;
+
+    private volatile ColumnarSnapshot current;
+    // Version at which the table was found too large, so the count is not repeated per fill
+    private volatile long tooLargeAtVersion = Long.MIN_VALUE;
+    // Not synchronized: the rebuild waits on the database, which would pin a virtual thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private TransactionTemplate readOnlyTransaction;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * The snapshot for the current data version, built first if needed; empty when
+     * snapshots are disabled or the table is too large for one.
+     */
+    public Optional<ColumnarSnapshot> get() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long version = employeeDataVersion.get();
+        ColumnarSnapshot snapshot = current;
+        if (snapshot != null && snapshot.getVersion() == version) {
+            hits.increment();
+            return Optional.of(snapshot);
+        }
+        if (tooLargeAtVersion == version) {
+            return Optional.empty();
+        }
+
+        // Concurrent fills after a change wait for a single rebuild
+        rebuildLock.lock();
+        try {
+            version = employeeDataVersion.get();
+            snapshot = current;
+            if (snapshot != null && snapshot.getVersion() == version) {
+                hits.increment();
+                return Optional.of(snapshot);
+            }
+            // Tagged with the version read before the rows, so a change committed
+            // during the build makes the next caller rebuild again
+            snapshot = build(version);
+            if (snapshot == null) {
+                tooLargeAtVersion = version;
+                current = null;
+                return Optional.empty();
+            }
+            current = snapshot;
+            return Optional.of(snapshot);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * The last snapshot built, whatever its version, without building one.
+     */
+    public Optional<ColumnarSnapshot> current() {
+        return Optional.ofNullable(current);
+    }
+
+    public Map<String, Object> getStats() {
+        ColumnarSnapshot snapshot = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("rows", snapshot == null ? 0 : snapshot.size());
+        stats.put("estimatedBytes", snapshot == null ? 0 : snapshot.estimatedBytes());
+        stats.put("hits", hits.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    private ColumnarSnapshot build(long version) {
+        long started = System.nanoTime();
+        ColumnarSnapshot snapshot = readOnlyTransaction.execute(status -> {
+            long rowCount = entityManager.createQuery("select count(e) from Employee e", Long.class).getSingleResult();
+            if (rowCount > maxRows) {
+                log.info("Employee table has {} rows, more than the snapshot limit of {}", rowCount, maxRows);
+                return null;
+            }
+            ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder(COLUMNS, maxDictionarySize, maxOrderings);
+            try (Stream<Tuple> rows = entityManager.createQuery(
+                            "select e.id, e.name, e.address, e.phone, e.gender from Employee e order by e.id", Tuple.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                rows.forEach(row -> builder.add(row.get(0, Long.class), row.get(1, String.class),
+                        row.get(2, String.class), row.get(3, String.class), row.get(4, String.class)));
+            }
+            return builder.build(version);
+        });
+        if (snapshot != null) {
+            rebuilds.increment();
+            log.info("Built employee snapshot: {} rows, ~{} bytes in {} ms", snapshot.size(),
+                    snapshot.estimatedBytes(), (System.nanoTime() - started) / 1_000_000);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Employee;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.export.JRGraphics2DExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleGraphics2DExporterOutput;
+import net.sf.jasperreports.export.SimpleGraphics2DReportConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Renders the first page of a design being edited as a PNG, filled from a
+ * capped number of rows so the cost does not depend on the table size.
+ * Each editor session has at most one preview in flight: a request for the
+ * same design and data joins it, a request for a different design cancels it.
+ */
+@Service
+public class LivePreviewService {
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private EmployeeReportDataProvider employeeReportDataProvider;
+
+    @Autowired
+    private EmployeeDataVersion employeeDataVersion;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private RenderLimiter renderLimiter;
+
+    @Value("${reports.preview.max-rows:50}")
+    private int maxRows;
+
+    @Value("${reports.preview.zoom:1.5}")
+    private float zoom;
+
+    @Value("${reports.preview.max-sessions:256}")
+    private int maxSessions;
+
+    // Session id -> its latest preview, which doubles as a cache of the last result
+    private final Map<String, Preview> previews = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Preview> eldest) {
+            return size() > maxSessions;
+        }
+    };
+
+    private static final class Preview {
+        private final String key;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        private Preview(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * @param sessionId identifies the editor the request comes from, or null to
+     *                  render without coalescing
+     * @throws CancellationException if a newer preview from the same session replaced this one
+     */
+    public byte[] renderFirstPage(String sessionId, String jrxml) throws Exception {
+        String key = CompiledReportCache.hash(jrxml) + "|" + employeeDataVersion.get();
+        Preview preview = new Preview(key);
+        Preview joined = null;
+        if (sessionId != null) {
+            synchronized (previews) {
+                Preview current = previews.get(sessionId);
+                if (current != null && current.key.equals(key) && !current.result.isCompletedExceptionally()) {
+                    joined = current;
+                } else {
+                    if (current != null) {
+                        current.cancelled = true;
+                    }
+                    previews.put(sessionId, preview);
+                }
+            }
+        }
+        if (joined != null) {
+            return await(joined.result);
+        }
+
+        try {
+            byte[] png = render(jrxml, preview);
+            preview.result.complete(png);
+            return png;
+        } catch (Exception e) {
+            preview.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public static List<Employee> sampleEmployees() {
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(null, "John Smith", "123 Main Street", "555-1234", "Male"));
+        employees.add(new Employee(null, "Jane Doe", "456 Oak Avenue", "555-5678", "Female"));
+        return employees;
+    }
+
+    private byte[] render(String jrxml, Preview preview) throws Exception {
+        try (ReportRecording recording = reportMetrics.start("preview", "png")) {
+            JasperReport jasperReport = recording.time("compile", () -> compiledReportCache.getOrCompile(jrxml));
+            checkCancelled(preview);
+
+            Map<String, Object> parameters = new HashMap<>();
+            reportImageRegistry.bindImageParameters(jasperReport, parameters);
+            JasperPrint jasperPrint = recording.time("fill", () -> renderLimiter.run(() -> {
+                if (employeeReportDataProvider.hasRows()) {
+                    return employeeReportDataProvider.fillPreview(jasperReport, parameters, maxRows);
+                }
+                // An empty table would preview as a blank page, sample rows show the layout
+                parameters.put(JRParameter.REPORT_MAX_COUNT, maxRows);
+                return JasperFillManager.fillReport(jasperReport, parameters,
+                        new JRBeanCollectionDataSource(sampleEmployees()));
+            }));
+            recording.pages(jasperPrint.getPages().size());
+            checkCancelled(preview);
+
+            byte[] png = recording.time("export", () -> renderLimiter.run(() -> exportFirstPage(jasperPrint)));
+            recording.outputBytes(png.length);
+            return png;
+        }
+    }
+
+    private byte[] exportFirstPage(JasperPrint jasperPrint) throws JRException, IOException {
+        BufferedImage image = new BufferedImage(
+                Math.max(1, Math.round(jasperPrint.getPageWidth() * zoom)),
+                Math.max(1, Math.round(jasperPrint.getPageHeight() * zoom)),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            if (!jasperPrint.getPages().isEmpty()) {
+                SimpleGraphics2DExporterOutput output = new SimpleGraphics2DExporterOutput();
+                output.setGraphics2D(graphics);
+                SimpleGraphics2DReportConfiguration configuration = new SimpleGraphics2DReportConfiguration();
+                configuration.setPageIndex(0);
+                configuration.setZoomRatio(zoom);
+
+                JRGraphics2DExporter exporter = new JRGraphics2DExporter();
+                exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+                exporter.setExporterOutput(output);
+                exporter.setConfiguration(configuration);
+                exporter.exportReport();
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    private static void checkCancelled(Preview preview) {
+        if (preview.cancelled) {
+            throw new CancellationException("Preview superseded by a newer request");
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
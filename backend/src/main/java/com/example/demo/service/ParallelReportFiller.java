@@ -0,0 +1,237 @@
+package com.example.demo.service;
+
+import com.example.demo.report.PartitionLayout;
+import com.example.demo.report.ReportProgressListener;
+import com.example.demo.report.SortColumn;
+import com.example.demo.service.EmployeeReportDataProvider.Partition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fills large employee reports by splitting the table into id ranges, filling
+ * the ranges concurrently and appending their pages in order. The title band
+ * is only kept in the first partition and the summary only in the last. Splits
+ * fall on page boundaries and every partition is given the pages and rows
+ * before it, so page numbers and row counts carry on across partitions and the
+ * merged document reads like a single fill. Designs whose output depends on
+ * more than the page a row lands on are filled serially, as is any fill whose
+ * partitions do not come out as the layout predicted.
+ */
+@Slf4j
+@Component
+public class ParallelReportFiller {
+
+    @Autowired
+    private EmployeeReportDataProvider employeeReportDataProvider;
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private RenderLimiter renderLimiter;
+
+    // 0 means one partition per available core; without a snapshot every partition holds a DB connection while it fills
+    @Value("${reports.fill.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${reports.fill.partition-min-rows:10000}")
+    private long minRowsPerPartition;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "report-fill-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    public int getParallelism() {
+        return configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Takes one render permit per concurrently filling partition, or a single
+     * permit for a serial fill, while the calling thread waits without one.
+     *
+     * @param parametersFactory called once per partition on the calling thread; virtualizers and
+     *                          image streams cannot be shared between concurrent fills
+     */
+    public JasperPrint fill(String jrxml, Supplier<Map<String, Object>> parametersFactory,
+                            ReportProgressListener progressListener) throws Exception {
+        JasperReport report = compiledReportCache.getOrCompile(jrxml);
+        Optional<PartitionLayout> layout = PartitionLayout.of(report);
+        if (layout.isPresent()) {
+            List<Partition> partitions = employeeReportDataProvider.partition(getParallelism(), minRowsPerPartition,
+                    layout.get()::alignRowOffset);
+            if (partitions.size() > 1) {
+                Optional<JasperPrint> merged = fillPartitions(jrxml, layout.get(), partitions, parametersFactory,
+                        progressListener);
+                if (merged.isPresent()) {
+                    return merged.get();
+                }
+            }
+        }
+
+        Optional<List<SortColumn>> order = employeeReportDataProvider.pushdownOrder(report);
+        Map<String, Object> parameters = parametersFactory.get();
+        if (order.isEmpty()) {
+            return renderLimiter.run(() -> employeeReportDataProvider.fillReport(report, parameters, progressListener));
+        }
+        // Rows arrive in sort field order, so the engine's in-memory sort of the whole dataset is compiled out
+        JasperReport sorted = report.getSortFields() != null && report.getSortFields().length > 0
+                ? compiledReportCache.getOrCompileVariant(jrxml, "presorted",
+                design -> new ArrayList<>(design.getSortFieldsList()).forEach(design::removeSortField))
+                : report;
+        return renderLimiter.run(() -> employeeReportDataProvider.fillSorted(sorted, parameters, order.get(),
+                progressListener));
+    }
+
+    /**
+     * Fills the partitions concurrently and merges them; empty if they did not
+     * paginate as the layout predicted, in which case the report has to be filled serially.
+     */
+    private Optional<JasperPrint> fillPartitions(String jrxml, PartitionLayout layout, List<Partition> partitions,
+                                                 Supplier<Map<String, Object>> parametersFactory,
+                                                 ReportProgressListener progressListener) throws Exception {
+        JasperReport first = compiledReportCache.getOrCompileVariant(jrxml, "partition-first", design -> {
+            design.setSummary(null);
+            PartitionLayout.prepareVariant(design);
+        });
+        JasperReport middle = compiledReportCache.getOrCompileVariant(jrxml, "partition-middle", design -> {
+            design.setTitle(null);
+            design.setSummary(null);
+            PartitionLayout.prepareVariant(design);
+        });
+        JasperReport last = compiledReportCache.getOrCompileVariant(jrxml, "partition-last", design -> {
+            design.setTitle(null);
+            PartitionLayout.prepareVariant(design);
+        });
+
+        int count = partitions.size();
+        int[] expectedPages = new int[count];
+        int[] pageOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            long rows = partitions.get(i).rows();
+            expectedPages[i] = i == count - 1 ? layout.lastPartitionPages(rows) : layout.pages(i == 0, rows);
+            pageOffsets[i] = i == 0 ? 0 : pageOffsets[i - 1] + expectedPages[i - 1];
+        }
+        Partition lastPartition = partitions.get(count - 1);
+        int totalPages = pageOffsets[count - 1] + expectedPages[count - 1];
+        int totalRows = Math.toIntExact(lastPartition.firstRow() + lastPartition.rows());
+
+        ReportRecording recording = reportMetrics.current();
+        AtomicLong rowsFilled = new AtomicLong();
+        long[] partitionRows = new long[count];
+        List<Future<JasperPrint>> fills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JasperReport report = i == 0 ? first : i == count - 1 ? last : middle;
+            Partition partition = partitions.get(i);
+            Map<String, Object> parameters = parametersFactory.get();
+            parameters.put(PartitionLayout.PAGE_OFFSET_PARAMETER, pageOffsets[i]);
+            parameters.put(PartitionLayout.ROW_OFFSET_PARAMETER, Math.toIntExact(partition.firstRow()));
+            parameters.put(PartitionLayout.TOTAL_PAGES_PARAMETER, totalPages);
+            parameters.put(PartitionLayout.TOTAL_ROWS_PARAMETER, totalRows);
+            int index = i;
+            ReportProgressListener partitionListener = new ReportProgressListener() {
+                private long reported;
+
+                @Override
+                public void rowsFilled(long rows) {
+                    progressListener.rowsFilled(rowsFilled.addAndGet(rows - reported));
+                    reported = rows;
+                    partitionRows[index] = rows;
+                }
+            };
+            fills.add(pool.submit(() -> {
+                long allocatedBefore = ReportMetrics.currentThreadAllocatedBytes();
+                try {
+                    // Each partition queues for its own permit, so a fanned-out fill counts once per core it uses
+                    return renderLimiter.run(() -> employeeReportDataProvider.fillRange(report, parameters,
+                            partition.range(), partitionListener));
+                } finally {
+                    if (recording != null && allocatedBefore >= 0) {
+                        recording.addAllocatedBytes(ReportMetrics.currentThreadAllocatedBytes() - allocatedBefore);
+                    }
+                }
+            }));
+        }
+        List<JasperPrint> prints = awaitAll(fills);
+
+        // Offsets handed to later partitions hold only if every partition filled the rows and pages it was planned with
+        for (int i = 0; i < count; i++) {
+            List<JRPrintPage> pages = prints.get(i).getPages();
+            boolean lastOne = i == count - 1;
+            boolean asPlanned = partitionRows[i] == partitions.get(i).rows()
+                    && (lastOne ? !layout.usesTotalPages() || pages.size() == expectedPages[i]
+                    : pages.size() == expectedPages[i] && layout.endsFull(pages.get(pages.size() - 1)));
+            if (!asPlanned) {
+                log.warn("Partition {} of {} filled {} rows on {} pages instead of {} rows on {} pages, filling serially",
+                        i + 1, count, partitionRows[i], pages.size(), partitions.get(i).rows(), expectedPages[i]);
+                return Optional.empty();
+            }
+        }
+        return Optional.of(merge(prints));
+    }
+
+    private static List<JasperPrint> awaitAll(List<Future<JasperPrint>> partitions) throws JRException {
+        List<JasperPrint> prints = new ArrayList<>(partitions.size());
+        try {
+            for (Future<JasperPrint> partition : partitions) {
+                prints.add(partition.get());
+            }
+            return prints;
+        } catch (InterruptedException e) {
+            partitions.forEach(partition -> partition.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new JRException("Interrupted while filling report partitions", e);
+        } catch (ExecutionException e) {
+            partitions.forEach(partition -> partition.cancel(true));
+            if (e.getCause() instanceof JRException jrException) {
+                throw jrException;
+            }
+            throw new JRException("Report partition fill failed", e.getCause());
+        }
+    }
+
+    private static JasperPrint merge(List<JasperPrint> prints) {
+        JasperPrint merged = prints.get(0);
+        for (int i = 1; i < prints.size(); i++) {
+            for (JRPrintPage page : prints.get(i).getPages()) {
+                merged.addPage(page);
+            }
+        }
+        return merged;
+    }
+}
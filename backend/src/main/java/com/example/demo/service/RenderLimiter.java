@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Caps how many CPU-heavy fill and export stages run at once. Request threads,
+ * virtual or not, may wait on the database or disk in any number, but only
+ * this many at a time compete for the cores; the rest queue here in arrival order.
+ * Exports are spooled to local disk under a permit and only copied to the
+ * client once it is released, so a slow download does not hold a core's share.
+ */
+@Component
+public class RenderLimiter {
+    // Spooled exports are named <uuid>.part; nothing else in the directory is ours to delete
+    private static final Pattern SPOOL_FILE =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.part");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 means one permit per available core
+    @Value("${reports.render.max-concurrent:0}")
+    private int configuredPermits;
+
+    // Parent of the report-render-spool directory exports are staged in
+    @Value("${reports.render.spool-dir:${java.io.tmpdir}}")
+    private String spoolDirectory;
+
+    private Path spoolDir;
+
+    private Semaphore permits;
+    private int maxPermits;
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Export {
+        void writeTo(OutputStream out) throws Exception;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        spoolDir = Path.of(spoolDirectory).resolve("report-render-spool");
+        Files.createDirectories(spoolDir);
+        // Spooled exports only live for one request, so anything left over is orphaned
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.filter(file -> Files.isRegularFile(file) && SPOOL_FILE.matcher(file.getFileName().toString()).matches())
+                    .forEach(RenderLimiter::deleteIfExists);
+        }
+        maxPermits = configuredPermits > 0 ? configuredPermits : Runtime.getRuntime().availableProcessors();
+        permits = new Semaphore(maxPermits, true);
+        Gauge.builder("reports.render.permits.available", permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("reports.render.queued", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+    public <T> T run(Work<T> work) throws Exception {
+        permits.acquire();
+        try {
+            return work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs an export under a permit into a spool file, then copies the result to
+     * {@code out} with the permit already released.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public long export(Export export, OutputStream out) throws Exception {
+        Path spool = spoolDir.resolve(UUID.randomUUID() + ".part");
+        try {
+            run(() -> {
+                try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(spool))) {
+                    export.writeTo(file);
+                }
+                return null;
+            });
+            return Files.copy(spool, out);
+        } finally {
+            deleteIfExists(spool);
+        }
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Left for the next startup to remove
+        }
+    }
+}
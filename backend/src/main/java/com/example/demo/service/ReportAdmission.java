@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.report.ReportFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRGroup;
+import net.sf.jasperreports.engine.JRSection;
+import net.sf.jasperreports.engine.JasperReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits report renders against a shared budget of cost units, weighted by an
+ * estimate from the row count, the detail band and the output formats.
+ * Requests that do not fit wait in arrival order up to a timeout and are then
+ * turned away with a 429, and only a bounded number may be admitted or waiting
+ * at once, so renders never occupy the servlet threads CRUD requests need.
+ * {@link RenderLimiter} still decides how many of the admitted fills and
+ * exports use the cores at the same moment.
+ */
+@Component
+public class ReportAdmission {
+
+    @Autowired
+    private EmployeeReportDataProvider employeeReportDataProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 means 100 units per available core
+    @Value("${reports.admission.budget:0}")
+    private int configuredBudget;
+
+    // Rows of a four-element detail band exported to PDF that make up one cost unit
+    @Value("${reports.admission.rows-per-unit:1000}")
+    private long rowsPerUnit;
+
+    @Value("${reports.admission.queue-timeout-ms:10000}")
+    private long queueTimeoutMs;
+
+    // Renders admitted or waiting at once; keep well below the servlet thread count
+    @Value("${reports.admission.max-in-flight:32}")
+    private int maxInFlight;
+
+    private Semaphore budget;
+    private int maxUnits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        maxUnits = configuredBudget > 0 ? configuredBudget : 100 * Runtime.getRuntime().availableProcessors();
+        budget = new Semaphore(maxUnits, true);
+        Gauge.builder("reports.admission.units.available", budget, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("reports.admission.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a render of the whole employee table in the given format.
+     */
+    public Ticket admit(JasperReport report, ReportFormat format) {
+        return admit(report, List.of(format));
+    }
+
+    /**
+     * Admits one fill of the whole employee table exported to every given format.
+     */
+    public Ticket admit(JasperReport report, Collection<ReportFormat> formats) {
+        return admit(report, formats, employeeReportDataProvider.countRows());
+    }
+
+    public Ticket admit(JasperReport report, Collection<ReportFormat> formats, long rows) {
+        return admit(estimate(report, formats, rows));
+    }
+
+    /**
+     * Waits up to the queue timeout for the given number of units; a request
+     * costing more than the whole budget runs alone.
+     *
+     * @throws TooManyRequestsException if too many renders are in flight or the wait times out
+     */
+    public Ticket admit(int units) {
+        int permits = Math.max(1, Math.min(units, maxUnits));
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            throw reject("Too many reports are being rendered");
+        }
+        boolean acquired = false;
+        try {
+            acquired = budget.tryAcquire(permits, queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!acquired) {
+                inFlight.decrementAndGet();
+            }
+        }
+        if (!acquired) {
+            throw reject("No report capacity became free in time");
+        }
+        admitted.increment();
+        return new Ticket(permits);
+    }
+
+    /**
+     * Cost in units: rows scaled by the detail band's element count and the
+     * relative export cost of each format, at least one.
+     */
+    public int estimate(JasperReport report, Collection<ReportFormat> formats, long rows) {
+        double formatWeight = formats.stream().mapToDouble(ReportAdmission::formatWeight).sum();
+        double units = rows * (complexity(report) / 4.0) * formatWeight / rowsPerUnit;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(units)));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("budgetUnits", maxUnits);
+        stats.put("availableUnits", budget.availablePermits());
+        stats.put("inFlight", inFlight.get());
+        stats.put("queued", budget.getQueueLength());
+        stats.put("admitted", admitted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private TooManyRequestsException reject(String message) {
+        rejected.increment();
+        return new TooManyRequestsException(message, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMs)));
+    }
+
+    // Relative to PDF; office formats build large in-memory documents, text formats are cheap
+    private static double formatWeight(ReportFormat format) {
+        return switch (format) {
+            case PDF -> 1.0;
+            case DOCX, XLSX -> 1.5;
+            case HTML -> 0.6;
+            case CSV -> 0.3;
+        };
+    }
+
+    // Elements evaluated per row, plus the groups they break on
+    private static int complexity(JasperReport report) {
+        int elements = 0;
+        JRSection detail = report.getDetailSection();
+        if (detail != null && detail.getBands() != null) {
+            for (JRBand band : detail.getBands()) {
+                if (band != null && band.getElements() != null) {
+                    elements += band.getElements().length;
+                }
+            }
+        }
+        JRGroup[] groups = report.getGroups();
+        return Math.max(1, elements + (groups == null ? 0 : groups.length));
+    }
+
+    /**
+     * Units held by an admitted render; closing returns them, more than once is harmless.
+     */
+    public final class Ticket implements AutoCloseable {
+        private final int units;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Ticket(int units) {
+            this.units = units;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                budget.release(units);
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
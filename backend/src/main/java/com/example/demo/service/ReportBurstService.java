@@ -0,0 +1,223 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Employee;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.repository.EmployeeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Splits the employee report into one PDF per employee. Employees are read in
+ * keyset batches, filled concurrently against a single compiled report and
+ * written to the zip in completion order. Only a bounded window of documents
+ * is in flight at a time and each batch is read detached in its own short
+ * transaction, so memory does not grow with the table. Employees whose
+ * document fails are listed in a failures.txt entry instead of aborting the run.
+ */
+@Slf4j
+@Service
+public class ReportBurstService {
+
+    @Autowired
+    private EmployeeReportService employeeReportService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private RenderLimiter renderLimiter;
+
+    // 0 means one thread per available core
+    @Value("${reports.burst.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${reports.burst.batch-size:500}")
+    private int batchSize;
+
+    private ExecutorService pool;
+    private int parallelism;
+    private TransactionTemplate readOnlyTransaction;
+
+    /** A filled document, or the reason the employee's document could not be produced. */
+    private record BurstDocument(String name, byte[] pdf, String failure) {
+    }
+
+    @PostConstruct
+    void start() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "report-burst-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    public void burstEmployeeReport(ZipOutputStream zip) throws Exception {
+        try (ReportRecording recording = reportMetrics.start("employee_report", "burst")) {
+            ReportDesignStore.StoredDesign design = employeeReportService.getStoredDesign();
+            JasperReport report = recording.time("compile",
+                    () -> compiledReportCache.getOrLoad(design.content(), design.compiledReport()));
+
+            CompletionService<BurstDocument> completion = new ExecutorCompletionService<>(pool);
+            Set<Future<BurstDocument>> pending = new HashSet<>();
+            // Enough queued work to keep every thread busy while the zip is written
+            int window = parallelism * 2;
+            long documents = 0;
+            List<String> failures = new ArrayList<>();
+            try {
+                Long afterId = Long.MIN_VALUE;
+                List<Employee> batch;
+                do {
+                    batch = readBatch(afterId);
+                    for (Employee employee : batch) {
+                        while (pending.size() >= window) {
+                            documents += write(zip, completion, pending, failures);
+                        }
+                        pending.add(completion.submit(() -> render(report, employee)));
+                    }
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == batchSize);
+
+                while (!pending.isEmpty()) {
+                    documents += write(zip, completion, pending, failures);
+                }
+                if (!failures.isEmpty()) {
+                    zip.putNextEntry(new ZipEntry("failures.txt"));
+                    zip.write((String.join("\n", failures) + "\n").getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            } finally {
+                // Only non-empty after a failure, the remaining documents are not needed
+                pending.forEach(future -> future.cancel(true));
+            }
+            recording.rows(documents);
+        }
+    }
+
+    // A short read-only transaction per batch; with open-in-view the request's persistence
+    // context is cleared as well, so nothing read for earlier batches stays reachable
+    private List<Employee> readBatch(Long afterId) {
+        List<Employee> batch = readOnlyTransaction.execute(status ->
+                employeeRepository.findDetachedAfter(afterId, PageRequest.of(0, batchSize)));
+        entityManager.clear();
+        return batch;
+    }
+
+    private BurstDocument render(JasperReport report, Employee employee) throws InterruptedException {
+        try {
+            return renderLimiter.run(() -> fill(report, employee));
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Burst document for employee id={} failed: {}", employee.getId(), e.getMessage());
+            log.debug("Burst document failure", e);
+            return new BurstDocument(documentName(employee), null, "employee " + employee.getId() + ": " + e);
+        }
+    }
+
+    private BurstDocument fill(JasperReport report, Employee employee) throws JRException {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("createdBy", "Jasper Report System");
+        // Shared decoded renderers from the registry, not a fresh image per document
+        reportImageRegistry.bindImageParameters(report, parameters);
+
+        JasperPrint jasperPrint = JasperFillManager.fillReport(report, parameters,
+                new JRBeanCollectionDataSource(List.of(employee)));
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        reportExporter.export(jasperPrint, ReportFormat.PDF, pdf);
+        return new BurstDocument(documentName(employee), pdf.toByteArray(), null);
+    }
+
+    /**
+     * Writes the next finished document to the zip, or records its failure.
+     *
+     * @return the number of documents written, one or zero
+     */
+    private static int write(ZipOutputStream zip, CompletionService<BurstDocument> completion,
+                             Set<Future<BurstDocument>> pending, List<String> failures) throws Exception {
+        Future<BurstDocument> done = completion.take();
+        pending.remove(done);
+        BurstDocument document;
+        try {
+            document = done.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (document.failure() != null) {
+            failures.add(document.failure());
+            return 0;
+        }
+        zip.putNextEntry(new ZipEntry(document.name()));
+        zip.write(document.pdf());
+        zip.closeEntry();
+        return 1;
+    }
+
+    private static String documentName(Employee employee) {
+        String name = employee.getName() == null ? "" : employee.getName().replaceAll("[^A-Za-z0-9]+", "_");
+        return "employee_" + employee.getId() + (name.isEmpty() ? "" : "_" + name) + ".pdf";
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ReportDataProvider;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the registered {@link ReportDataProvider} beans by report type.
+ */
+@Component
+public class ReportDataProviderRegistry {
+
+    @Autowired
+    private List<ReportDataProvider> registeredProviders;
+
+    private Map<String, ReportDataProvider> providers;
+
+    @PostConstruct
+    void start() {
+        // Fails startup when two providers claim the same report type
+        providers = registeredProviders.stream()
+                .collect(Collectors.toUnmodifiableMap(ReportDataProvider::getReportType, Function.identity()));
+    }
+
+    public Optional<ReportDataProvider> get(String reportType) {
+        return Optional.ofNullable(providers.get(reportType));
+    }
+
+    public Set<String> getReportTypes() {
+        return providers.keySet();
+    }
+}
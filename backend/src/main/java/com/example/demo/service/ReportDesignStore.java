@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ReportDesign;
+import com.example.demo.entity.ReportDesignRevision;
+import com.example.demo.exception.DesignVersionConflictException;
+import com.example.demo.repository.ReportDesignRepository;
+import com.example.demo.repository.ReportDesignRevisionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through, write-through cache of report designs. Reads are served from
+ * memory; once an entry is older than the revalidation interval it is checked
+ * against the database by version number only, and the design content is
+ * re-read only when another node has changed it. Every saved version is also
+ * kept in the design history, up to a configured number per report.
+ */
+@Component
+public class ReportDesignStore {
+
+    @Autowired
+    private ReportDesignRepository reportDesignRepository;
+
+    @Autowired
+    private ReportDesignRevisionRepository reportDesignRevisionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${reports.design-store.revalidate-ms:5000}")
+    private long revalidateMs;
+
+    // 0 keeps every revision
+    @Value("${reports.design-history.max-revisions:50}")
+    private int maxRevisions;
+
+    private final Map<String, StoredDesign> designs = new ConcurrentHashMap<>();
+
+    public record StoredDesign(Long id, String content, byte[] compiledReport, long version, Timestamp lastModified,
+                               String hash, long validatedAtNanos) {
+
+        StoredDesign revalidated() {
+            return new StoredDesign(id, content, compiledReport, version, lastModified, hash, System.nanoTime());
+        }
+    }
+
+    public Optional<StoredDesign> get(String reportName) {
+        StoredDesign cached = designs.get(reportName);
+        if (cached != null && System.nanoTime() - cached.validatedAtNanos() < TimeUnit.MILLISECONDS.toNanos(revalidateMs)) {
+            return Optional.of(cached);
+        }
+        if (cached != null) {
+            Optional<Long> currentVersion = reportDesignRepository.findVersionByReportName(reportName);
+            if (currentVersion.isPresent() && currentVersion.get() == cached.version()) {
+                StoredDesign revalidated = cached.revalidated();
+                designs.put(reportName, revalidated);
+                return Optional.of(revalidated);
+            }
+            // Changed elsewhere, so the second-level and query cache entries are stale as well
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            cache.evictEntityData(ReportDesign.class, cached.id());
+            cache.evictDefaultQueryRegion();
+        }
+        Optional<StoredDesign> loaded = reportDesignRepository.findByReportName(reportName).map(ReportDesignStore::from);
+        loaded.ifPresentOrElse(design -> designs.put(reportName, design), () -> designs.remove(reportName));
+        return loaded;
+    }
+
+    @Transactional
+    public StoredDesign save(String reportName, String content, byte[] compiledReport) {
+        return save(reportName, content, compiledReport, null);
+    }
+
+    /**
+     * Saves a design if it is still at the expected version.
+     *
+     * @param expectedVersion the version the change was made against, or null to save unconditionally
+     * @throws DesignVersionConflictException if the design has moved on from the expected version
+     */
+    @Transactional
+    public StoredDesign save(String reportName, String content, byte[] compiledReport, Long expectedVersion) {
+        ReportDesign reportDesign = reportDesignRepository.findByReportName(reportName).orElseGet(() -> {
+            ReportDesign created = new ReportDesign();
+            created.setReportName(reportName);
+            return created;
+        });
+        if (expectedVersion != null && !expectedVersion.equals(reportDesign.getVersion())) {
+            throw new DesignVersionConflictException("Design " + reportName + " is no longer at version "
+                    + expectedVersion, reportDesign.getVersion());
+        }
+        // Saving the same design again would only bump the version and clients' ETags
+        if (reportDesign.getId() != null && reportDesign.getCompiledReport() != null
+                && Objects.equals(reportDesign.getDesignContent(), content)) {
+            return from(reportDesign);
+        }
+        reportDesign.setDesignContent(content);
+        reportDesign.setCompiledReport(compiledReport);
+
+        // Flush so the generated id, timestamp and incremented version are known; the
+        // version column also catches a concurrent save that passed the check above
+        StoredDesign saved;
+        try {
+            saved = from(reportDesignRepository.saveAndFlush(reportDesign));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new DesignVersionConflictException("Design " + reportName + " was changed concurrently", null);
+        }
+        recordRevision(reportName, saved);
+        afterCommit(() -> designs.put(reportName, saved));
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReportDesignRevisionRepository.RevisionSummary> getHistory(String reportName) {
+        return reportDesignRevisionRepository.findByReportNameOrderByVersionDesc(reportName);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ReportDesignRevision> getRevision(String reportName, long version) {
+        return reportDesignRevisionRepository.findByReportNameAndVersion(reportName, version);
+    }
+
+    public void invalidate(String reportName) {
+        designs.remove(reportName);
+    }
+
+    private void recordRevision(String reportName, StoredDesign saved) {
+        // A design created afresh starts again at version 0; history of an earlier one is dropped
+        if (saved.version() == 0) {
+            reportDesignRevisionRepository.deleteOlderThan(reportName, Long.MAX_VALUE);
+        }
+        ReportDesignRevision revision = new ReportDesignRevision();
+        revision.setReportName(reportName);
+        revision.setVersion(saved.version());
+        revision.setDesignContent(saved.content());
+        revision.setCreatedAt(saved.lastModified() != null
+                ? saved.lastModified() : new Timestamp(System.currentTimeMillis()));
+        reportDesignRevisionRepository.save(revision);
+        if (maxRevisions > 0) {
+            reportDesignRevisionRepository.deleteOlderThan(reportName, saved.version() - maxRevisions + 1);
+        }
+    }
+
+    private static StoredDesign from(ReportDesign design) {
+        return new StoredDesign(design.getId(), design.getDesignContent(), design.getCompiledReport(),
+                design.getVersion() == null ? 0 : design.getVersion(), design.getLastModified(),
+                design.getDesignContent() == null ? null : CompiledReportCache.hash(design.getDesignContent()),
+                System.nanoTime());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.demo.service;
+
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportFormat;
+import jakarta.annotation.PostConstruct;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.export.JRCsvExporter;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterConfiguration;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import net.sf.jasperreports.export.SimpleHtmlReportConfiguration;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import net.sf.jasperreports.export.SimplePdfReportConfiguration;
+import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
+import net.sf.jasperreports.export.type.PdfaConformanceEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Exports a filled report to any supported format, so one fill can be written
+ * out several times.
+ */
+@Component
+public class ReportExporter {
+
+    @Value("${reports.pdf.default-profile:fast}")
+    private String defaultProfileName;
+
+    private PdfExportProfile defaultProfile;
+    private Path iccProfile;
+
+    @PostConstruct
+    void start() throws IOException {
+        defaultProfile = PdfExportProfile.fromName(defaultProfileName)
+                .orElseThrow(() -> new IllegalStateException("Unknown PDF export profile " + defaultProfileName));
+        // PDF/A needs an output intent; the JDK's built-in sRGB profile serves as one
+        iccProfile = Files.createTempFile("srgb", ".icc");
+        iccProfile.toFile().deleteOnExit();
+        Files.write(iccProfile, ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+    }
+
+    /**
+     * The requested PDF export profile, or the configured default when none was
+     * asked for; empty if the name is unknown.
+     */
+    public Optional<PdfExportProfile> resolveProfile(String name) {
+        return name == null || name.isBlank() ? Optional.of(defaultProfile) : PdfExportProfile.fromName(name);
+    }
+
+    public PdfExportProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    public void export(JasperPrint jasperPrint, ReportFormat format, OutputStream out) throws JRException {
+        export(jasperPrint, format, defaultProfile, out);
+    }
+
+    /**
+     * @param profile only affects PDF output
+     */
+    public void export(JasperPrint jasperPrint, ReportFormat format, PdfExportProfile profile,
+                       OutputStream out) throws JRException {
+        SimpleExporterInput input = new SimpleExporterInput(jasperPrint);
+        switch (format) {
+            case XLSX -> suppressPageBands(jasperPrint, "net.sf.jasperreports.export.xls.");
+            case CSV -> suppressPageBands(jasperPrint, "net.sf.jasperreports.export.csv.");
+            case HTML -> suppressPageBands(jasperPrint, "net.sf.jasperreports.export.html.");
+            default -> {
+            }
+        }
+        switch (format) {
+            case PDF -> {
+                JRPdfExporter exporter = new JRPdfExporter();
+                exporter.setExporterInput(input);
+                exporter.setConfiguration(pdfReportConfiguration(profile));
+                exporter.setConfiguration(pdfExporterConfiguration(jasperPrint, profile));
+                exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+                exporter.exportReport();
+            }
+            case DOCX -> {
+                JRDocxExporter exporter = new JRDocxExporter();
+                exporter.setExporterInput(input);
+                exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+                exporter.exportReport();
+            }
+            case XLSX -> {
+                SimpleXlsxReportConfiguration configuration = new SimpleXlsxReportConfiguration();
+                configuration.setDetectCellType(true);
+                configuration.setOnePagePerSheet(false);
+                configuration.setRemoveEmptySpaceBetweenRows(true);
+                configuration.setWhitePageBackground(false);
+                configuration.setIgnorePageMargins(true);
+
+                JRXlsxExporter exporter = new JRXlsxExporter();
+                exporter.setExporterInput(input);
+                exporter.setConfiguration(configuration);
+                exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+                exporter.exportReport();
+            }
+            case CSV -> {
+                JRCsvExporter exporter = new JRCsvExporter();
+                exporter.setExporterInput(input);
+                exporter.setExporterOutput(new SimpleWriterExporterOutput(out, StandardCharsets.UTF_8.name()));
+                exporter.exportReport();
+            }
+            case HTML -> {
+                // Images are inlined so the page does not need an image servlet
+                SimpleHtmlReportConfiguration configuration = new SimpleHtmlReportConfiguration();
+                configuration.setEmbedImage(true);
+                configuration.setIgnorePageMargins(true);
+                configuration.setRemoveEmptySpaceBetweenRows(true);
+                SimpleHtmlExporterConfiguration exporterConfiguration = new SimpleHtmlExporterConfiguration();
+                exporterConfiguration.setBetweenPagesHtml("");
+
+                HtmlExporter exporter = new HtmlExporter();
+                exporter.setExporterInput(input);
+                exporter.setConfiguration(configuration);
+                exporter.setConfiguration(exporterConfiguration);
+                exporter.setExporterOutput(new SimpleHtmlExporterOutput(out, StandardCharsets.UTF_8.name()));
+                exporter.exportReport();
+            }
+        }
+    }
+
+    /**
+     * Reports are always filled with pagination, so the virtualizer can swap out
+     * filled pages. Formats without page breaks then read as one continuous table
+     * by dropping what each page break repeats: page and column headers after the
+     * first page, and the footers.
+     */
+    private static void suppressPageBands(JasperPrint jasperPrint, String exporterPrefix) {
+        for (String band : new String[]{"pageHeader", "columnHeader"}) {
+            jasperPrint.setProperty(exporterPrefix + "exclude.origin.keep.first.band." + band, band);
+        }
+        for (String band : new String[]{"columnFooter", "pageFooter", "lastPageFooter"}) {
+            jasperPrint.setProperty(exporterPrefix + "exclude.origin.band." + band, band);
+        }
+    }
+
+    private static SimplePdfReportConfiguration pdfReportConfiguration(PdfExportProfile profile) {
+        SimplePdfReportConfiguration configuration = new SimplePdfReportConfiguration();
+        // Native PDF lines and rectangles are cheaper to write and smaller than shapes drawn as SVG
+        configuration.setForceSvgShapes(profile.isArchival());
+        return configuration;
+    }
+
+    private SimplePdfExporterConfiguration pdfExporterConfiguration(JasperPrint jasperPrint, PdfExportProfile profile) {
+        SimplePdfExporterConfiguration configuration = new SimplePdfExporterConfiguration();
+        configuration.setCompressed(profile.isCompressed());
+        if (profile.isArchival()) {
+            // PDF/A-1b: embedded fonts, no transparency, device-independent colour
+            configuration.setPdfaConformance(PdfaConformanceEnum.PDFA_1B);
+            configuration.setIccProfilePath(iccProfile.toString());
+            configuration.setTagged(true);
+            configuration.setTagLanguage("en");
+            configuration.setMetadataTitle(jasperPrint.getName());
+            configuration.setMetadataCreator("Jasper Report System");
+            configuration.setDisplayMetadataTitle(true);
+        }
+        return configuration;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ImageQuality;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.SimpleDataRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps report images (the logo parameters and anything registered at runtime)
+ * loaded once and shared between fills as immutable renderers, so exports do
+ * not re-read and re-decode them from the classpath on every request. Each
+ * image is prepared in up to one form per {@link ImageQuality}, on first use.
+ */
+@Component
+public class ReportImageRegistry {
+
+    // Parameter name -> classpath image that backs it when nothing was registered
+    private static final Map<String, String> CLASSPATH_IMAGES = Map.of(
+            "logoLeft", "logo.png",
+            "logoRight", "organization_logo.png"
+    );
+
+    // Largest image that may be registered at runtime
+    @Value("${reports.images.max-bytes:2097152}")
+    private int maxImageBytes;
+
+    // Runtime-registered images kept at once; the built-in logos are held apart and never evicted
+    @Value("${reports.images.max-entries:32}")
+    private int maxEntries;
+
+    // Optional: shrinks print-quality images to max-edge-px, which changes the default output
+    @Value("${reports.images.downscale:false}")
+    private boolean downscale;
+
+    // Longest edge kept for print; logos are placed at ~60pt, i.e. ~125px at 150 dpi
+    @Value("${reports.images.max-edge-px:250}")
+    private int maxEdgePixels;
+
+    @Value("${reports.images.compact.max-edge-px:120}")
+    private int compactMaxEdgePixels;
+
+    @Value("${reports.images.compact.jpeg-quality:0.75}")
+    private float compactJpegQuality;
+
+    private final Map<String, RegisteredImage> images = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegisteredImage> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, RegisteredImage> builtIns = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public record ReportImage(String name, byte[] data, Renderable renderable) {
+    }
+
+    private record RegisteredImage(byte[] original, Map<ImageQuality, ReportImage> forms) {
+    }
+
+    public ReportImage get(String name) {
+        return get(name, ImageQuality.PRINT);
+    }
+
+    public ReportImage get(String name, ImageQuality quality) {
+        RegisteredImage image = registered(name);
+        if (image == null) {
+            return null;
+        }
+        return image.forms().computeIfAbsent(quality, form -> {
+            byte[] data = prepare(image.original(), form);
+            return new ReportImage(name, data, SimpleDataRenderer.getInstance(data));
+        });
+    }
+
+    private RegisteredImage registered(String name) {
+        String location = CLASSPATH_IMAGES.get(name);
+        if (location != null) {
+            return builtIns.computeIfAbsent(name, builtIn -> load(location));
+        }
+        synchronized (images) {
+            return images.get(name);
+        }
+    }
+
+    private static RegisteredImage load(String location) {
+        try (InputStream in = new ClassPathResource(location).getInputStream()) {
+            return new RegisteredImage(in.readAllBytes(), new ConcurrentHashMap<>());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load report image " + location, e);
+        }
+    }
+
+    /**
+     * Images backed by the classpath appear in every report and cached export,
+     * so they cannot be replaced or evicted at runtime.
+     */
+    public boolean isBuiltIn(String name) {
+        return CLASSPATH_IMAGES.containsKey(name);
+    }
+
+    public int getMaxImageBytes() {
+        return maxImageBytes;
+    }
+
+    /**
+     * Changes whenever a registration or eviction may change rendered output,
+     * for keys of cached exports. Registrations do not survive a restart, and
+     * neither do the cached exports keyed by it.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public ReportImage register(String name, byte[] data) {
+        if (isBuiltIn(name)) {
+            throw new IllegalArgumentException("Built-in report image " + name + " cannot be replaced");
+        }
+        store(name, data);
+        return get(name);
+    }
+
+    private void store(String name, byte[] data) {
+        RegisteredImage image = new RegisteredImage(data, new ConcurrentHashMap<>());
+        synchronized (images) {
+            images.put(name, image);
+            version.incrementAndGet();
+        }
+    }
+
+    public boolean evict(String name) {
+        if (isBuiltIn(name)) {
+            return false;
+        }
+        synchronized (images) {
+            if (images.remove(name) == null) {
+                return false;
+            }
+            version.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Puts every registered image the report declares a parameter for into the
+     * parameter map, in whichever form the parameter's class accepts.
+     */
+    public void bindImageParameters(JasperReport report, Map<String, Object> parameters) {
+        bindImageParameters(report, parameters, ImageQuality.PRINT);
+    }
+
+    public void bindImageParameters(JasperReport report, Map<String, Object> parameters, ImageQuality quality) {
+        for (JRParameter parameter : report.getParameters()) {
+            if (parameter.isSystemDefined() || parameters.containsKey(parameter.getName())) {
+                continue;
+            }
+            ReportImage image = get(parameter.getName(), quality);
+            if (image == null) {
+                continue;
+            }
+            Class<?> valueClass = parameter.getValueClass();
+            if (valueClass.isAssignableFrom(Renderable.class)) {
+                parameters.put(parameter.getName(), image.renderable());
+            } else if (valueClass.isAssignableFrom(InputStream.class)) {
+                // Designs saved before the Renderable parameter type still get decoded bytes from memory
+                parameters.put(parameter.getName(), new ByteArrayInputStream(image.data()));
+            } else if (valueClass == byte[].class) {
+                parameters.put(parameter.getName(), image.data());
+            }
+        }
+    }
+
+    private byte[] prepare(byte[] data, ImageQuality quality) {
+        return switch (quality) {
+            case PRINT -> downscale ? transform(data, maxEdgePixels, false, 0) : data;
+            case COMPACT -> transform(data, compactMaxEdgePixels, true, compactJpegQuality);
+            case ARCHIVAL -> transform(data, Integer.MAX_VALUE, true, 0);
+        };
+    }
+
+    /**
+     * Scales an image down to the given longest edge and re-encodes it: as JPEG
+     * when a quality is given, otherwise as PNG. Opaque output is drawn onto white.
+     * Returns the original bytes when they cannot be decoded or nothing would change.
+     */
+    private static byte[] transform(byte[] data, int maxEdge, boolean opaque, float jpegQuality) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(data));
+            if (source == null) {
+                return data; // not a raster format ImageIO understands (e.g. SVG)
+            }
+            int longestEdge = Math.max(source.getWidth(), source.getHeight());
+            boolean resize = longestEdge > maxEdge;
+            boolean flatten = opaque && source.getColorModel().hasAlpha();
+            if (!resize && !flatten && jpegQuality <= 0) {
+                return data;
+            }
+            double scale = resize ? (double) maxEdge / longestEdge : 1.0;
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+            BufferedImage scaled = new BufferedImage(width, height,
+                    opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                if (opaque) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (jpegQuality > 0) {
+                writeJpeg(scaled, jpegQuality, out);
+            } else {
+                ImageIO.write(scaled, "png", out);
+            }
+            // A flattened image must be used even if larger; otherwise keep whichever is smaller
+            return flatten || out.size() < data.length ? out.toByteArray() : data;
+        } catch (IOException e) {
+            return data;
+        }
+    }
+
+    private static void writeJpeg(BufferedImage image, float quality, ByteArrayOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
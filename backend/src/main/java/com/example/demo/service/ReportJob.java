@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ReportFormat;
+import com.example.demo.report.ReportProgressListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+public class ReportJob implements ReportProgressListener {
+
+    public enum Status {
+        QUEUED, RUNNING, EXPORTING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final String clientId;
+    private final String reportType;
+    private final ReportFormat format;
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long totalRows;
+    private volatile long rowsFilled;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long outputBytes;
+    private volatile String error;
+    private volatile Path outputFile;
+    private volatile Future<?> future;
+    // Admission units held from submission until the job ends
+    private volatile ReportAdmission.Ticket ticket;
+
+    public ReportJob(String id, String clientId, String reportType, ReportFormat format) {
+        this.id = id;
+        this.clientId = clientId;
+        this.reportType = reportType;
+        this.format = format;
+    }
+
+    synchronized void markRunning(long totalRows) {
+        if (status == Status.CANCELLED) {
+            return;
+        }
+        this.totalRows = totalRows;
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    void markCompleted(Path outputFile, long outputBytes) {
+        this.outputFile = outputFile;
+        this.outputBytes = outputBytes;
+        finish(Status.COMPLETED);
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        finish(Status.CANCELLED);
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    private synchronized void finish(Status finalStatus) {
+        // A job cancelled while running must not be flipped back to completed/failed
+        if (status == Status.CANCELLED) {
+            return;
+        }
+        this.status = finalStatus;
+        this.finishedAt = Instant.now();
+    }
+
+    @Override
+    public void rowsFilled(long rows) {
+        this.rowsFilled = rows;
+    }
+
+    @Override
+    public void exportStarted() {
+        if (status == Status.RUNNING) {
+            this.status = Status.EXPORTING;
+        }
+    }
+
+    public int getProgressPercent() {
+        return switch (status) {
+            case QUEUED -> 0;
+            case COMPLETED -> 100;
+            case EXPORTING -> 90;
+            // Filling is reported as the first 90%, exporting takes the rest
+            case RUNNING -> totalRows == 0 ? 0 : (int) Math.min(90, rowsFilled * 90 / totalRows);
+            default -> rowsFilled == 0 || totalRows == 0 ? 0 : (int) Math.min(100, rowsFilled * 100 / totalRows);
+        };
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getRowsFilled() {
+        return rowsFilled;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public Path getOutputFile() {
+        return outputFile;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setTicket(ReportAdmission.Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    void releaseTicket() {
+        ReportAdmission.Ticket held = ticket;
+        if (held != null) {
+            held.close();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.repository.EmployeeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs report fills and exports off the request threads on a bounded pool and
+ * spools the results to local disk until they are downloaded or expire. Jobs
+ * are admitted through {@link ReportAdmission} like synchronous exports, so
+ * queued and running jobs count against the same render budget.
+ */
+@Service
+public class ReportJobService {
+    // Job outputs are named <job id>.<extension>; nothing else in the spool is ours to delete
+    private static final Pattern SPOOL_FILE =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.[a-z]+");
+
+    @Autowired
+    private EmployeeReportService employeeReportService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReportAdmission reportAdmission;
+
+    @Value("${reports.jobs.workers:4}")
+    private int workers;
+
+    @Value("${reports.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${reports.jobs.max-per-client:2}")
+    private int maxJobsPerClient;
+
+    // Parent of the report-jobs directory the service spools into
+    @Value("${reports.jobs.spool-dir:${java.io.tmpdir}}")
+    private String spoolDirectory;
+
+    @Value("${reports.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Path spoolDir;
+
+    @PostConstruct
+    void start() throws IOException {
+        spoolDir = Path.of(spoolDirectory).resolve("report-jobs");
+        Files.createDirectories(spoolDir);
+        // Jobs do not survive a restart, so any output left in the spool is orphaned
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.filter(file -> Files.isRegularFile(file) && SPOOL_FILE.matcher(file.getFileName().toString()).matches())
+                    .forEach(ReportJobService::deleteIfExists);
+        }
+
+        // Workers mostly wait on the database, the disk and the render limiter, which
+        // virtual threads do without holding a platform thread; the pool still bounds the jobs
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("report-job-", 1).factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a job once it is admitted with the same estimate as a synchronous
+     * export of the report.
+     *
+     * @throws TooManyRequestsException if the client has too many jobs, no capacity is free or the queue is full
+     */
+    public ReportJob submit(String clientId, String reportType, ReportFormat format) throws Exception {
+        ReportJob job = reserve(clientId, reportType, format);
+        try {
+            job.setTicket(reportAdmission.admit(employeeReportService.getCompiledReport(), format));
+            job.setFuture(executor.submit(() -> run(job)));
+            return job;
+        } catch (RejectedExecutionException e) {
+            release(job);
+            throw new TooManyRequestsException("Report job queue is full", 60);
+        } catch (Exception e) {
+            release(job);
+            throw e;
+        }
+    }
+
+    // Registered before admission, which may wait, so the job already counts against the client's limit
+    private synchronized ReportJob reserve(String clientId, String reportType, ReportFormat format) {
+        long activeForClient = jobs.values().stream()
+                .filter(job -> job.getClientId().equals(clientId) && !job.getStatus().isFinished())
+                .count();
+        if (activeForClient >= maxJobsPerClient) {
+            throw new TooManyRequestsException(
+                    "At most " + maxJobsPerClient + " report jobs may run per client", 30);
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), clientId, reportType, format);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private void release(ReportJob job) {
+        jobs.remove(job.getId());
+        job.releaseTicket();
+    }
+
+    public Optional<ReportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public boolean cancel(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        // A queued job would otherwise hold its worker queue slot and units until a worker dequeued it
+        if (job.getFuture() instanceof Runnable task && executor.remove(task)) {
+            job.releaseTicket();
+        }
+        deleteOutput(job);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${reports.jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(ttlMinutes));
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getStatus().isFinished()
+                    && job.getFinishedAt() != null
+                    && job.getFinishedAt().isBefore(cutoff);
+            if (expired) {
+                deleteOutput(job);
+            }
+            return expired;
+        });
+    }
+
+    private void run(ReportJob job) {
+        try {
+            if (job.getStatus() == ReportJob.Status.CANCELLED) {
+                return;
+            }
+            job.markRunning(employeeRepository.count());
+            Path file = spoolDir.resolve(job.getId() + "." + job.getFormat().getExtension());
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    employeeReportService.exportEmployeeReport(out, job.getFormat(), job);
+                }
+                job.markCompleted(file, Files.size(file));
+            } catch (Exception e) {
+                job.markFailed(e.getMessage());
+            }
+            if (job.getStatus() != ReportJob.Status.COMPLETED) {
+                deleteIfExists(file);
+            }
+        } finally {
+            job.releaseTicket();
+        }
+    }
+
+    private void deleteOutput(ReportJob job) {
+        if (job.getOutputFile() != null) {
+            deleteIfExists(job.getOutputFile());
+        }
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // The next cleanup pass or restart removes it
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Micrometer instrumentation for report rendering: a timer per pipeline stage
+ * and per-report distributions of rows, pages, output size and heap allocated.
+ */
+@Component
+public class ReportMetrics {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ThreadLocal<ReportRecording> current = new ThreadLocal<>();
+
+    public ReportRecording start(String report, String format) {
+        ReportRecording recording = new ReportRecording(this, report, format, current.get());
+        current.set(recording);
+        return recording;
+    }
+
+    /**
+     * The recording started on this thread, if any; lets helpers running work for
+     * it on other threads attribute their allocations to it.
+     */
+    public ReportRecording current() {
+        return current.get();
+    }
+
+    void finish(ReportRecording recording) {
+        if (recording.getPrevious() != null) {
+            current.set(recording.getPrevious());
+        } else {
+            current.remove();
+        }
+    }
+
+    Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    Timer timer(String name, String report, String format, String stage) {
+        return Timer.builder(name)
+                .tags("report", report, "format", format, "stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    DistributionSummary summary(String name, String baseUnit, String report, String format) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tags("report", report, "format", format)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread, or -1 where the JVM cannot tell.
+     */
+    public static long currentThreadAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemorySupported()
+                && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk LRU store of rendered report files. Keys identify
+ * everything that affects the output (design, data version, parameters and
+ * format), so entries never need to be invalidated, only evicted.
+ */
+@Component
+public class ReportOutputCache {
+    // Cached files are named by their key, renders in progress by the key plus a .part suffix
+    private static final Pattern CACHE_FILE = Pattern.compile("[0-9a-f]{64}(\\d*\\.part)?");
+
+    // Parent of the report-output-cache directory the cache keeps its files in
+    @Value("${reports.output-cache.dir:${java.io.tmpdir}}")
+    private String cacheDirectory;
+
+    @Value("${reports.output-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    // Requests waiting for a render another request started, across all keys; each holds a request thread
+    @Value("${reports.output-cache.max-joiners:16}")
+    private int maxJoiners;
+
+    @Value("${reports.output-cache.join-timeout-ms:10000}")
+    private long joinTimeoutMs;
+
+    // Access-ordered so iteration starts at the least recently used file
+    private final LinkedHashMap<String, CachedOutput> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private Path cacheDir;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicInteger joiners = new AtomicInteger();
+    private final LongAdder joinRejections = new LongAdder();
+
+    private record CachedOutput(Path file, long size) {
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream out) throws Exception;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        cacheDir = Path.of(cacheDirectory).resolve("report-output-cache");
+        Files.createDirectories(cacheDir);
+        // The index lives in memory, so files from a previous run cannot be trusted
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && CACHE_FILE.matcher(file.getFileName().toString()).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    public static String key(String designHash, long dataVersion, String format, Map<String, ?> parameters) {
+        return CompiledReportCache.hash(designHash + "|" + dataVersion + "|" + format + "|" + new TreeMap<>(parameters));
+    }
+
+    /**
+     * An opened cache file. The stream stays readable even if the entry is
+     * evicted while it is being served; the caller must close it.
+     */
+    public record CachedFile(InputStream stream, long size) {
+    }
+
+    /**
+     * Serves the cached file, or renders it; a request finding the same key
+     * already being rendered waits for that render instead.
+     *
+     * @throws TooManyRequestsException if too many requests are already waiting for renders,
+     *                                  or the render did not finish within the join timeout
+     */
+    public CachedFile getOrRender(String key, Renderer renderer) throws Exception {
+        CachedFile cached = openCached(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        while (true) {
+            CompletableFuture<Path> pending = new CompletableFuture<>();
+            CompletableFuture<Path> existing = inFlight.putIfAbsent(key, pending);
+            if (existing == null) {
+                return render(key, renderer, pending);
+            }
+            join(existing);
+            // Another request rendered it, but a concurrent store may have evicted it
+            // before it could be opened here; render it again in that case
+            CachedFile joined = openCached(key);
+            if (joined != null) {
+                return joined;
+            }
+        }
+    }
+
+    private CachedFile render(String key, Renderer renderer, CompletableFuture<Path> pending) throws Exception {
+        Path target = cacheDir.resolve(key);
+        Path temp = Files.createTempFile(cacheDir, key, ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                renderer.render(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Opened before the entry is indexed, so no eviction can delete it first
+            CachedFile opened = new CachedFile(Files.newInputStream(target), Files.size(target));
+            store(key, new CachedOutput(target, opened.size()));
+            pending.complete(target);
+            return opened;
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private CachedFile openCached(String key) throws IOException {
+        synchronized (entries) {
+            CachedOutput cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            try {
+                return new CachedFile(Files.newInputStream(cached.file()), cached.size());
+            } catch (NoSuchFileException e) {
+                // Removed from disk behind the cache's back
+                entries.remove(key);
+                totalBytes -= cached.size();
+                return null;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("joining", joiners.get());
+        stats.put("joinRejections", joinRejections.sum());
+        return stats;
+    }
+
+    private void store(String key, CachedOutput output) {
+        synchronized (entries) {
+            CachedOutput replaced = entries.put(key, output);
+            if (replaced != null) {
+                totalBytes -= replaced.size();
+            }
+            totalBytes += output.size();
+
+            Iterator<Map.Entry<String, CachedOutput>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedOutput> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue; // never evict what was just rendered
+                }
+                eldest.remove();
+                totalBytes -= entry.getValue().size();
+                try {
+                    Files.deleteIfExists(entry.getValue().file());
+                } catch (IOException ignored) {
+                    // Still open on a platform that cannot delete open files; the next start removes it
+                }
+            }
+        }
+    }
+
+    private void join(CompletableFuture<Path> render) throws Exception {
+        if (joiners.incrementAndGet() > maxJoiners) {
+            joiners.decrementAndGet();
+            throw rejectJoin("Too many requests are waiting for reports being rendered");
+        }
+        try {
+            render.get(joinTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw rejectJoin("The report being rendered did not finish in time");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            joiners.decrementAndGet();
+        }
+    }
+
+    private TooManyRequestsException rejectJoin(String message) {
+        joinRejections.increment();
+        return new TooManyRequestsException(message, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(joinTimeoutMs)));
+    }
+}
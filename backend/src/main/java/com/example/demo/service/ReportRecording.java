@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ReportProgressListener;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics for a single report render, published when closed.
+ */
+public class ReportRecording implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Stage<T> {
+        T run() throws Exception;
+    }
+
+    private final ReportMetrics metrics;
+    private final String report;
+    private final String format;
+    private final ReportRecording previous;
+    private final Timer.Sample total;
+    private final long startAllocatedBytes;
+    private final LongAdder otherThreadsAllocatedBytes = new LongAdder();
+    private final AtomicLong rows = new AtomicLong(-1);
+    private volatile long pages = -1;
+    private volatile long outputBytes = -1;
+
+    ReportRecording(ReportMetrics metrics, String report, String format, ReportRecording previous) {
+        this.metrics = metrics;
+        this.report = report;
+        this.format = format;
+        this.previous = previous;
+        this.total = metrics.startTimer();
+        this.startAllocatedBytes = ReportMetrics.currentThreadAllocatedBytes();
+    }
+
+    public <T> T time(String stage, Stage<T> work) throws Exception {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return work.run();
+        } finally {
+            sample.stop(metrics.timer("reports.stage.duration", report, format, stage));
+        }
+    }
+
+    /**
+     * Wraps a progress listener so the final row count is recorded as well.
+     */
+    public ReportProgressListener track(ReportProgressListener delegate) {
+        return new ReportProgressListener() {
+            @Override
+            public void rowsFilled(long filled) {
+                rows.set(filled);
+                delegate.rowsFilled(filled);
+            }
+
+            @Override
+            public void exportStarted() {
+                delegate.exportStarted();
+            }
+        };
+    }
+
+    public void rows(long rows) {
+        this.rows.set(rows);
+    }
+
+    public void pages(long pages) {
+        this.pages = pages;
+    }
+
+    public void outputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public void addAllocatedBytes(long bytes) {
+        if (bytes > 0) {
+            otherThreadsAllocatedBytes.add(bytes);
+        }
+    }
+
+    ReportRecording getPrevious() {
+        return previous;
+    }
+
+    @Override
+    public void close() {
+        total.stop(metrics.timer("reports.render.duration", report, format, "total"));
+        if (rows.get() >= 0) {
+            metrics.summary("reports.rows", "rows", report, format).record(rows.get());
+        }
+        if (pages >= 0) {
+            metrics.summary("reports.pages", "pages", report, format).record(pages);
+        }
+        if (outputBytes >= 0) {
+            metrics.summary("reports.output.size", "bytes", report, format).record(outputBytes);
+        }
+        long endAllocatedBytes = ReportMetrics.currentThreadAllocatedBytes();
+        if (startAllocatedBytes >= 0 && endAllocatedBytes >= 0) {
+            metrics.summary("reports.allocated", "bytes", report, format)
+                    .record(endAllocatedBytes - startAllocatedBytes + otherThreadsAllocatedBytes.sum());
+        }
+        metrics.finish(this);
+    }
+}
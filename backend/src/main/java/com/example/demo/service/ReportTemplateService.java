@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.ReportTemplate;
+import com.example.demo.exception.InvalidReportDesignException;
 import com.example.demo.repository.ReportTemplateRepository;
+import net.sf.jasperreports.engine.JRException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +16,12 @@ public class ReportTemplateService {
     @Autowired
     private ReportTemplateRepository templateRepository;
 
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ActiveTemplateIndex activeTemplateIndex;
+
     public List<ReportTemplate> getAllTemplates() {
         return templateRepository.findAll();
     }
@@ -28,19 +36,37 @@ public class ReportTemplateService {
 
     @Transactional
     public ReportTemplate saveTemplate(ReportTemplate template) {
+        // An update replaces the stored JRXML, so its compiled form is stale
+        if (template.getId() != null) {
+            templateRepository.findById(template.getId())
+                    .ifPresent(existing -> compiledReportCache.evict(existing.getJrxmlContent()));
+        }
+
+        // Compile up front so an invalid template is rejected and never stored
+        if (template.getJrxmlContent() == null || template.getJrxmlContent().isBlank()) {
+            throw new InvalidReportDesignException("Report template has no JRXML content", null);
+        }
+        try {
+            template.setCompiledReport(CompiledReportCache.serialize(
+                    compiledReportCache.getOrCompile(template.getJrxmlContent())));
+        } catch (JRException e) {
+            throw new InvalidReportDesignException("Report template does not compile: " + e.getMessage(), e);
+        }
+
         // If this template is being set as active, deactivate other templates of the same type
         if (template.isActive()) {
-            List<ReportTemplate> existingTemplates = templateRepository.findByReportType(template.getReportType());
-            existingTemplates.forEach(t -> {
-                t.setActive(false);
-                templateRepository.save(t);
-            });
+            templateRepository.deactivateByReportType(template.getReportType());
         }
-        return templateRepository.save(template);
+        ReportTemplate saved = templateRepository.save(template);
+        activeTemplateIndex.saved(saved);
+        return saved;
     }
 
     @Transactional
     public void deleteTemplate(Long id) {
+        templateRepository.findById(id)
+                .ifPresent(existing -> compiledReportCache.evict(existing.getJrxmlContent()));
         templateRepository.deleteById(id);
+        activeTemplateIndex.deleted(id);
     }
 } 
\ No newline at end of file
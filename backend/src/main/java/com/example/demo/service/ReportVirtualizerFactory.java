@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Creates the swap file virtualizers that keep filled pages beyond the
+ * in-memory limit on disk. Callers own the virtualizer and must clean it up.
+ */
+@Component
+public class ReportVirtualizerFactory {
+
+    @Value("${reports.virtualizer.max-pages:50}")
+    private int virtualizerMaxPages;
+
+    @Value("${reports.virtualizer.swap-dir:${java.io.tmpdir}/jasper-swap}")
+    private String swapDirectory;
+
+    @Value("${reports.virtualizer.block-size:4096}")
+    private int swapBlockSize;
+
+    @Value("${reports.virtualizer.min-grow-count:256}")
+    private int swapMinGrowCount;
+
+    public JRSwapFileVirtualizer create() {
+        try {
+            Files.createDirectories(Path.of(swapDirectory));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create swap directory " + swapDirectory, e);
+        }
+        JRSwapFile swapFile = new JRSwapFile(swapDirectory, swapBlockSize, swapMinGrowCount);
+        return new JRSwapFileVirtualizer(virtualizerMaxPages, swapFile, true);
+    }
+}
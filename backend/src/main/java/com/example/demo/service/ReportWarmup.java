@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.report.ReportFormat;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the employee report and every active template into the compiled report
+ * cache before the application reports itself ready, so the first requests
+ * after a deploy do not pay for compilation. Optionally fills and exports each
+ * report once against synthetic rows to warm up the JIT.
+ */
+@Slf4j
+@Component
+public class ReportWarmup implements ApplicationRunner {
+
+    @Autowired
+    private EmployeeReportService employeeReportService;
+
+    @Autowired
+    private ActiveTemplateIndex activeTemplateIndex;
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @Value("${reports.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reports.warmup.synthetic-fill:false}")
+    private boolean syntheticFill;
+
+    @Value("${reports.warmup.synthetic-rows:200}")
+    private int syntheticRows;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        Map<String, WarmupTask> tasks = new HashMap<>();
+        try {
+            ReportDesignStore.StoredDesign design = employeeReportService.getStoredDesign();
+            tasks.put("employee_report", () -> compiledReportCache.getOrLoad(design.content(), design.compiledReport()));
+        } catch (Exception e) {
+            log.warn("Could not load the employee report design for warm-up", e);
+        }
+        for (ActiveTemplateIndex.ActiveTemplate template : activeTemplateIndex.getAll().values()) {
+            tasks.put("template " + template.id(),
+                    () -> compiledReportCache.getOrLoad(template.jrxmlContent(), template.compiledReport()));
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Map.Entry<String, Future<?>>> results = new ArrayList<>();
+            tasks.forEach((name, task) -> results.add(Map.entry(name, executor.submit(() -> warmUp(task)))));
+            int warmed = 0;
+            for (Map.Entry<String, Future<?>> result : results) {
+                try {
+                    result.getValue().get();
+                    warmed++;
+                } catch (Exception e) {
+                    // A broken template must not keep the node from starting
+                    log.warn("Warm-up failed for {}", result.getKey(), e);
+                }
+            }
+            log.info("Warmed up {} of {} reports in {} ms (synthetic fill {})", warmed, tasks.size(),
+                    (System.nanoTime() - start) / 1_000_000, syntheticFill ? "on" : "off");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Void warmUp(WarmupTask task) throws JRException {
+        JasperReport report = task.load();
+        if (syntheticFill) {
+            Map<String, Object> parameters = new HashMap<>();
+            reportImageRegistry.bindImageParameters(report, parameters);
+            JasperPrint print = JasperFillManager.fillReport(report, parameters, new JREmptyDataSource(syntheticRows));
+            reportExporter.export(print, ReportFormat.PDF, OutputStream.nullOutputStream());
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface WarmupTask {
+        JasperReport load() throws JRException;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hit, miss and size figures of the Hibernate second-level and query caches,
+ * per region, for sizing the regions in application.conf.
+ */
+@Component
+public class SecondLevelCacheStats {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> getStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("entries", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("hits", statistics.getSecondLevelCacheHitCount());
+        stats.put("misses", statistics.getSecondLevelCacheMissCount());
+        stats.put("puts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryCache", queries);
+        stats.put("regions", regions);
+        return stats;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.report.CountingOutputStream;
+import com.example.demo.report.ImageQuality;
+import com.example.demo.report.PdfExportProfile;
+import com.example.demo.report.ReportDataProvider;
+import com.example.demo.report.ReportFormat;
+import com.example.demo.report.ReportProgressListener;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Renders any report type from its active {@link com.example.demo.entity.ReportTemplate},
+ * filled by the {@link ReportDataProvider} registered for that type.
+ */
+@Service
+public class TemplateReportService {
+
+    @Autowired
+    private ActiveTemplateIndex activeTemplateIndex;
+
+    @Autowired
+    private ReportDataProviderRegistry reportDataProviderRegistry;
+
+    @Autowired
+    private CompiledReportCache compiledReportCache;
+
+    @Autowired
+    private ReportImageRegistry reportImageRegistry;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @Autowired
+    private ReportVirtualizerFactory reportVirtualizerFactory;
+
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    @Autowired
+    private RenderLimiter renderLimiter;
+
+    public record RenderableReport(ActiveTemplateIndex.ActiveTemplate template, ReportDataProvider dataProvider) {
+    }
+
+    /**
+     * Resolves what is needed to render a report type; empty when there is no
+     * active template or no data provider for it.
+     */
+    public Optional<RenderableReport> find(String reportType) {
+        return activeTemplateIndex.get(reportType).flatMap(template ->
+                reportDataProviderRegistry.get(reportType).map(provider -> new RenderableReport(template, provider)));
+    }
+
+    public JasperReport getCompiledReport(RenderableReport renderable) throws JRException {
+        ActiveTemplateIndex.ActiveTemplate template = renderable.template();
+        return compiledReportCache.getOrLoad(template.jrxmlContent(), template.compiledReport());
+    }
+
+    public void export(RenderableReport renderable, ReportFormat format, PdfExportProfile profile,
+                       OutputStream out) throws Exception {
+        ActiveTemplateIndex.ActiveTemplate template = renderable.template();
+        try (ReportRecording recording = reportMetrics.start(template.reportType(), format.getExtension())) {
+            JasperReport jasperReport = recording.time("compile",
+                    () -> compiledReportCache.getOrLoad(template.jrxmlContent(), template.compiledReport()));
+
+            JRSwapFileVirtualizer virtualizer = reportVirtualizerFactory.create();
+            try {
+                Map<String, Object> parameters = new HashMap<>();
+                parameters.put("createdBy", "Jasper Report System");
+                parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+                reportImageRegistry.bindImageParameters(jasperReport, parameters,
+                        format == ReportFormat.PDF ? profile.getImageQuality() : ImageQuality.PRINT);
+
+                JasperPrint jasperPrint = recording.time("fill", () -> renderLimiter.run(() -> renderable.dataProvider()
+                        .fillReport(jasperReport, parameters, recording.track(ReportProgressListener.NONE))));
+                recording.pages(jasperPrint.getPages().size());
+                virtualizer.setReadOnly(true);
+
+                CountingOutputStream countingOut = new CountingOutputStream(out);
+                recording.time("export", () -> {
+                    renderLimiter.export(spool -> reportExporter.export(jasperPrint, format, profile, spool),
+                            countingOut);
+                    countingOut.flush();
+                    return null;
+                });
+                recording.outputBytes(countingOut.getCount());
+            } finally {
+                virtualizer.cleanup();
+            }
+        }
+    }
+}
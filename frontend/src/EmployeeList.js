@@ -1,29 +1,50 @@
-import React, { useEffect, useState } from "react";
+import React, { useCallback, useEffect, useState } from "react";
 import 'bootstrap/dist/css/bootstrap.min.css';
 import ReportTemplateEditor from './ReportTemplateEditor';
 import ReportVisualEditor from './ReportVisualEditor';
 
+const PAGE_SIZE = 100;
+const LIST_FIELDS = "name,address,phone,gender";
+
+// The server links the next page in the Link header: <url>; rel="next"
+const nextPageUrl = (response) => {
+  const link = response.headers.get("Link");
+  const match = link && link.match(/<([^>]+)>;\s*rel="next"/);
+  return match ? match[1] : null;
+};
+
 function EmployeeList() {
   const [employees, setEmployees] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextUrl, setNextUrl] = useState(null);
 
-  useEffect(() => {
-    fetch("/api/employees")
-      .then((res) => res.json())
+  const loadPage = useCallback((url, append) => {
+    return fetch(url)
+      .then((res) => {
+        setNextUrl(nextPageUrl(res));
+        return res.json();
+      })
       .then((data) => {
-        setEmployees(data);
-        setLoading(false);
+        setEmployees((current) => (append ? [...current, ...data] : data));
       })
-      .catch((err) => {
-        setLoading(false);
-        alert("Failed to fetch employees: " + err);
-      });
+      .catch((err) => alert("Failed to fetch employees: " + err));
   }, []);
 
+  useEffect(() => {
+    loadPage(`/api/employees?size=${PAGE_SIZE}&fields=${LIST_FIELDS}`, false)
+      .finally(() => setLoading(false));
+  }, [loadPage]);
+
+  const handleLoadMore = () => {
+    setLoadingMore(true);
+    loadPage(nextUrl, true).finally(() => setLoadingMore(false));
+  };
+
   const handleExport = (type) => {
     const url = type === "pdf"
       ? "/api/reports/employees/pdf"
-      : "/api/reports/employees/excel";
+      : "/api/reports/employees?format=xlsx";
     fetch(url, {
       method: "GET",
     })
@@ -92,6 +113,13 @@ function EmployeeList() {
           ))}
         </tbody>
       </table>
+      {nextUrl && (
+        <div className="text-center mb-4">
+          <button className="btn btn-outline-secondary" onClick={handleLoadMore} disabled={loadingMore}>
+            {loadingMore ? "Loading..." : "Load more"}
+          </button>
+        </div>
+      )}
     </div>
   );
 }
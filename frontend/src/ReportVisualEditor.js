@@ -420,6 +420,21 @@ const parseJrxml = (jrxml) => {
     }
 };
 
+// The change from one text to another as a single splice, for delta saves
+const textSplice = (base, next) => {
+    let prefix = 0;
+    const maxPrefix = Math.min(base.length, next.length);
+    while (prefix < maxPrefix && base[prefix] === next[prefix]) prefix++;
+    let suffix = 0;
+    const maxSuffix = maxPrefix - prefix;
+    while (suffix < maxSuffix && base[base.length - 1 - suffix] === next[next.length - 1 - suffix]) suffix++;
+    return {
+        offset: prefix,
+        delete: base.length - prefix - suffix,
+        insert: next.substring(prefix, next.length - suffix),
+    };
+};
+
 // Helper to serialize bands/elements to JRXML
 function bandsToJrxml(originalBands) {
     // Deep clone the bands to avoid modifying the original
@@ -649,8 +664,8 @@ function bandsToJrxml(originalBands) {
     </style>
 
     <!-- Parameters come after style -->
-    <parameter name="logoLeft" class="java.io.InputStream"/>
-    <parameter name="logoRight" class="java.io.InputStream"/>
+    <parameter name="logoLeft" class="net.sf.jasperreports.renderers.Renderable"/>
+    <parameter name="logoRight" class="net.sf.jasperreports.renderers.Renderable"/>
 
     <!-- Fields come after parameters -->
     <field name="name" class="java.lang.String"/>
@@ -676,6 +691,8 @@ function bandsToJrxml(originalBands) {
 function ReportVisualEditor() {
     const [show, setShow] = useState(false);
     const [designContent, setDesignContent] = useState("");
+    // Version tag of designContent on the server; saves are made conditional on it
+    const [designEtag, setDesignEtag] = useState(null);
     const [bands, setBands] = useState({});
     const [activeBand, setActiveBand] = useState('title');
     const [loadingDesign, setLoadingDesign] = useState(false);
@@ -692,6 +709,9 @@ function ReportVisualEditor() {
 
     const containerRef = useRef();
     const sidebarRef = useRef();
+    const previewAbortRef = useRef(null);
+    // Lets the server coalesce or cancel superseded previews from this editor
+    const previewSessionRef = useRef(`editor-${Date.now()}-${Math.random().toString(36).slice(2)}`);
 
     // Setup keyboard shortcuts
     useEffect(() => {
@@ -850,6 +870,7 @@ function ReportVisualEditor() {
                 if (!response.ok) {
                     throw new Error(`Failed to load design: ${response.status} ${response.statusText}`);
                 }
+                setDesignEtag(response.headers.get('ETag'));
                 return response.text();
             })
             .then(designXml => {
@@ -898,7 +919,10 @@ function ReportVisualEditor() {
                 
                 // Fetch the default template from backend resources
                 fetch("/api/reports/employees/preview")
-                    .then(response => response.text())
+                    .then(response => {
+                        setDesignEtag(response.headers.get('ETag'));
+                        return response.text();
+                    })
                     .then(defaultTemplate => {
                         try {
                             setDesignContent(defaultTemplate);
@@ -934,6 +958,7 @@ function ReportVisualEditor() {
 
     const resetEditorState = () => {
         setDesignContent("");
+        setDesignEtag(null);
         setBands({});
         setSelectedElement(null);
         setShowPreview(false);
@@ -960,14 +985,28 @@ function ReportVisualEditor() {
         console.log("Saving JRXML template to database, length:", jrxml.length);
         console.log("First 200 chars of template:", jrxml.substring(0, 200));
         
-        // Fix: Ensure we're using the correct endpoint path
-        fetch("/api/reports/employees/design", {
+        // Only what changed since the design was loaded or last saved is uploaded; both
+        // kinds of save only succeed if nobody else saved the design in between
+        const fullSave = () => fetch("/api/reports/employees/design", {
             method: "POST",
             headers: {
                 "Content-Type": "text/plain",
+                ...(designEtag ? {"If-Match": designEtag} : {}),
             },
             body: jrxml,
-        })
+        });
+        const save = designEtag && designContent
+            ? fetch("/api/reports/employees/design", {
+                method: "PATCH",
+                headers: {
+                    "Content-Type": "application/json",
+                    "If-Match": designEtag,
+                },
+                body: JSON.stringify({edits: [textSplice(designContent, jrxml)]}),
+            }).then(response => (response.status === 405 || response.status === 415) ? fullSave() : response)
+            : fullSave();
+
+        save
             .then((response) => {
                 console.log("Save response status:", response.status);
                 console.log("Save response ok:", response.ok);
@@ -981,20 +1020,33 @@ function ReportVisualEditor() {
                     });
             })
             .then(({ response, text }) => {
-                if (response.ok) {
+                if (response.status === 412) {
+                    setStatusMessage({
+                        text: 'The design was changed elsewhere since you opened it. Close and reopen the editor to load the latest version before saving.',
+                        type: 'warning'
+                    });
+                } else if (response.ok) {
                     setStatusMessage({text: `Design updated successfully! Server says: ${text}`, type: 'success'});
                     setDesignContent(jrxml); // Update the original content to mark as saved
+                    const savedEtag = response.headers.get('ETag');
+                    setDesignEtag(savedEtag);
                     
                     console.log("Verifying save by fetching the saved design back");
                     
-                    // Verify saved design by immediately fetching it back
+                    // Verify saved design by immediately fetching it back; a 304 means the
+                    // server still holds exactly the version this save produced
                     setTimeout(() => {
-                        fetch("/api/reports/employees/preview")
+                        fetch("/api/reports/employees/preview", {
+                            headers: savedEtag ? {"If-None-Match": savedEtag} : {},
+                        })
                             .then(r => {
                                 console.log("Verification fetch status:", r.status);
-                                return r.text();
+                                return r.status === 304 ? null : r.text();
                             })
                             .then(savedContent => {
+                                if (savedContent === null) {
+                                    return;
+                                }
                                 console.log("Verification: Saved design length:", savedContent.length);
                                 console.log("Verification: First 100 chars:", savedContent.substring(0, 100));
                                 
@@ -1307,35 +1359,45 @@ function ReportVisualEditor() {
         }
     };
 
-    // Preview handler - shows the current design from the editor
+    // Preview handler - shows the first page of the current design from the editor
     const handlePreview = async () => {
+        // Only the latest preview matters, drop any request still in flight
+        if (previewAbortRef.current) {
+            previewAbortRef.current.abort();
+        }
+        const controller = new AbortController();
+        previewAbortRef.current = controller;
+
         setPreviewLoading(true);
-        setPreviewUrl(null);
         
         try {
-            // Generate JRXML from current bands state
-            console.log("Generating JRXML from current bands state for preview:", bands);
-            
             // Convert the current bands state to JRXML
             const savedJrxml = bandsToJrxml(bands);
             
-            console.log("Using dynamically generated template for preview, length:", savedJrxml.length);
-            console.log("First 200 chars:", savedJrxml.substring(0, 200));
-            
-            // Generate preview using the current design
-            const previewResponse = await fetch('/api/employees/preview-live', {
+            // The server renders page one from a limited number of rows as an image
+            const previewResponse = await fetch('/api/employees/preview-live?format=png', {
                 method: 'POST',
-                headers: {'Content-Type': 'text/plain'},
+                headers: {
+                    'Content-Type': 'text/plain',
+                    'X-Client-Id': previewSessionRef.current,
+                },
                 body: savedJrxml,
+                signal: controller.signal,
             });
 
+            if (previewResponse.status === 409) {
+                return; // superseded by a newer preview
+            }
             if (!previewResponse.ok) {
                 throw new Error(`Server error: ${previewResponse.status} ${previewResponse.statusText}`);
             }
 
             const blob = await previewResponse.blob();
             const url = URL.createObjectURL(blob);
-            setPreviewUrl(url);
+            setPreviewUrl((previous) => {
+                if (previous) URL.revokeObjectURL(previous);
+                return url;
+            });
             setShowPreview(true);
             
             // Set success message
@@ -1344,10 +1406,39 @@ function ReportVisualEditor() {
             // Auto-clear success message after 2 seconds
             setTimeout(() => setStatusMessage(null), 2000);
         } catch (err) {
+            if (err.name === 'AbortError') {
+                return;
+            }
             console.error("Failed to generate preview", err);
             setStatusMessage({text: 'Failed to generate preview: ' + err.message, type: 'danger'});
         } finally {
-            setPreviewLoading(false);
+            if (previewAbortRef.current === controller) {
+                previewAbortRef.current = null;
+                setPreviewLoading(false);
+            }
+        }
+    };
+
+    // Full PDF of the current design with all employees, only built on demand
+    const handleDownloadPreviewPdf = async () => {
+        try {
+            const response = await fetch('/api/employees/preview-live', {
+                method: 'POST',
+                headers: {'Content-Type': 'text/plain'},
+                body: bandsToJrxml(bands),
+            });
+            if (!response.ok) {
+                throw new Error(`Server error: ${response.status} ${response.statusText}`);
+            }
+            const url = URL.createObjectURL(await response.blob());
+            const link = document.createElement('a');
+            link.href = url;
+            link.download = 'employee_report_preview.pdf';
+            link.click();
+            URL.revokeObjectURL(url);
+        } catch (err) {
+            console.error("Failed to download preview PDF", err);
+            setStatusMessage({text: 'Failed to download PDF: ' + err.message, type: 'danger'});
         }
     };
 
@@ -2387,37 +2478,25 @@ function ReportVisualEditor() {
                                     <div className="bg-light p-2 border-bottom d-flex justify-content-between align-items-center">
                                         <span className="text-muted">
                                             <i className="bi bi-info-circle me-2"></i>
-                                            This preview shows your saved design with actual employee data from the database
+                                            This preview shows the first page of your design with the first employees from the database
                                         </span>
-                                        <a
-                                            href={previewUrl}
-                                            download="employee_report_preview.pdf"
-                                            className="btn btn-sm btn-outline-primary"
+                                        <Button
+                                            size="sm"
+                                            variant="outline-primary"
+                                            onClick={handleDownloadPreviewPdf}
                                         >
                                             <i className="bi bi-download me-2"></i>
                                             Download PDF
-                                        </a>
+                                        </Button>
+                                    </div>
+                                    <div className="flex-grow-1 overflow-auto text-center bg-secondary bg-opacity-10 p-3">
+                                        <img
+                                            src={previewUrl}
+                                            alt="First page of the report preview"
+                                            className="shadow bg-white"
+                                            style={{maxWidth: '100%'}}
+                                        />
                                     </div>
-                                    <object
-                                        data={previewUrl}
-                                        type="application/pdf"
-                                        width="100%"
-                                        height="100%"
-                                        className="flex-grow-1"
-                                    >
-                                        <div className="alert alert-warning m-3">
-                                            <h4>PDF preview is not supported in this browser</h4>
-                                            <p>Please download the PDF to view it.</p>
-                                            <a
-                                                href={previewUrl}
-                                                download="employee_report_preview.pdf"
-                                                className="btn btn-primary"
-                                            >
-                                                <i className="bi bi-download me-2"></i>
-                                                Download PDF
-                                            </a>
-                                        </div>
-                                    </object>
                                 </div>
                             ) : (
                                 <div className="alert alert-warning m-3">